@@ -0,0 +1,24 @@
+package Its.incom.pw5.interceptor;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Runs the annotated job on a single node of the cluster at a time, guarded by a lease in the jobLease collection.
+// Nodes that cannot take the lease skip the run.
+// Limitation: the fencing token is only checked by JobLeaseService.checkLease(), between steps; the job's own writes
+// do not carry it. A node that loses its lease in the middle of a step still finishes that step's writes,
+// so every step of a clustered job must be idempotent (archiveChunk and removeExpiredSessions are).
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ClusteredJob {
+    // Job name, defaults to ClassName.methodName
+    @Nonbinding String value() default "";
+
+    // ISO-8601 lease duration, renewed while the job runs
+    @Nonbinding String lease() default "PT5M";
+}
@@ -0,0 +1,37 @@
+package Its.incom.pw5.interceptor;
+
+import Its.incom.pw5.service.JobLeaseService;
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+// Runs before GlobalLoggingInterceptor, so the lease is taken before the logged and traced invocation starts
+@Interceptor
+@ClusteredJob
+@Priority(Interceptor.Priority.APPLICATION - 10)
+public class ClusteredJobInterceptor {
+
+    private final JobLeaseService jobLeaseService;
+
+    public ClusteredJobInterceptor(JobLeaseService jobLeaseService) {
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @AroundInvoke
+    public Object runOnce(InvocationContext context) throws Exception {
+        Method method = context.getMethod();
+        ClusteredJob job = method.getAnnotation(ClusteredJob.class);
+        if (job == null) {
+            job = method.getDeclaringClass().getAnnotation(ClusteredJob.class);
+        }
+
+        String jobName = job.value().isBlank()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : job.value();
+        return jobLeaseService.runExclusively(jobName, Duration.parse(job.lease()), context::proceed);
+    }
+}
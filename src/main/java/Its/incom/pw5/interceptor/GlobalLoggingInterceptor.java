@@ -1,21 +1,124 @@
 package Its.incom.pw5.interceptor;
 
+import Its.incom.pw5.service.Tracer;
+import jakarta.annotation.Priority;
 import jakarta.interceptor.AroundInvoke;
 import jakarta.interceptor.Interceptor;
 import jakarta.interceptor.InvocationContext;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Logs a sample of @GlobalLog calls with their duration and a short summary of arguments and result.
+// The sample rate is pw5.log.sample-rate, overridable per method with pw5.log.sample-rate.<Class>.<method>;
+// failed calls are always logged. Output goes to the async CALLS handler (see application.properties).
+// Every call is also a span of the current request trace.
 @Interceptor
 @GlobalLog
+@Priority(Interceptor.Priority.APPLICATION)
 public class GlobalLoggingInterceptor {
 
     private static final Logger LOG = Logger.getLogger(GlobalLoggingInterceptor.class);
+    private static final String SAMPLE_RATE_PROPERTY = "pw5.log.sample-rate";
+
+    private final Config config;
+    private final Tracer tracer;
+    private final double defaultSampleRate;
+    private final int maxValueLength;
+    private final Map<Method, Double> sampleRates = new ConcurrentHashMap<>();
+
+    public GlobalLoggingInterceptor(Config config, Tracer tracer,
+                                    @ConfigProperty(name = SAMPLE_RATE_PROPERTY, defaultValue = "0.1") double defaultSampleRate,
+                                    @ConfigProperty(name = "pw5.log.max-value-length", defaultValue = "200") int maxValueLength) {
+        this.config = config;
+        this.tracer = tracer;
+        this.defaultSampleRate = defaultSampleRate;
+        this.maxValueLength = maxValueLength;
+    }
 
     @AroundInvoke
     public Object logMethodCall(InvocationContext context) throws Exception {
-        LOG.infof("Entering method: %s", context.getMethod().getName());
-        Object result = context.proceed();
-        LOG.infof("Exiting method: %s with result: %s", context.getMethod().getName(), result);
+        Method method = context.getMethod();
+        boolean sampled = LOG.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate(method);
+        long start = System.nanoTime();
+        Tracer.Span span = tracer.startSpan(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+
+        Object result;
+        try {
+            result = context.proceed();
+        } catch (Exception e) {
+            if (span != null) {
+                span.setOutcome(e.getClass().getSimpleName());
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.infof("%s.%s(%s) failed after %d ms: %s", method.getDeclaringClass().getSimpleName(), method.getName(),
+                        summarize(context.getParameters()), elapsedMillis(start), summarize(e));
+            }
+            throw e;
+        } finally {
+            tracer.end(span);
+        }
+
+        // Arguments and result are only rendered for sampled calls
+        if (sampled) {
+            LOG.infof("%s.%s(%s) took %d ms, result: %s", method.getDeclaringClass().getSimpleName(), method.getName(),
+                    summarize(context.getParameters()), elapsedMillis(start), summarize(result));
+        }
         return result;
     }
+
+    private double sampleRate(Method method) {
+        return sampleRates.computeIfAbsent(method, m -> config.getOptionalValue(
+                SAMPLE_RATE_PROPERTY + "." + m.getDeclaringClass().getSimpleName() + "." + m.getName(), Double.class)
+                .orElse(defaultSampleRate));
+    }
+
+    private String summarize(Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return "";
+        }
+        StringBuilder summary = new StringBuilder();
+        for (Object parameter : parameters) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(summarize(parameter));
+        }
+        return summary.toString();
+    }
+
+    // Collections and maps are reported by size, anything else by its toString() cut to maxValueLength
+    private String summarize(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Collection<?> collection) {
+            return value.getClass().getSimpleName() + "[size=" + collection.size() + "]";
+        }
+        if (value instanceof Map<?, ?> map) {
+            return value.getClass().getSimpleName() + "[size=" + map.size() + "]";
+        }
+        if (value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        }
+        if (value instanceof Throwable throwable) {
+            return throwable.getClass().getSimpleName() + ": " + truncate(String.valueOf(throwable.getMessage()));
+        }
+        return truncate(String.valueOf(value));
+    }
+
+    private String truncate(String value) {
+        return value.length() <= maxValueLength ? value : value.substring(0, maxValueLength) + "...";
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
 }
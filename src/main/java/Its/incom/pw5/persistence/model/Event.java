@@ -2,6 +2,7 @@ package Its.incom.pw5.persistence.model;
 
 import Its.incom.pw5.persistence.model.enums.EventStatus;
 import Its.incom.pw5.persistence.model.enums.EventSubscription;
+import Its.incom.pw5.persistence.model.enums.TicketAllocation;
 import io.quarkus.mongodb.panache.common.MongoEntity;
 import org.bson.types.ObjectId;
 
@@ -26,6 +27,7 @@ public class Event {
     private int maxParticipants;
     private int registeredParticipants;
     private List<ObjectId> ticketIds;
+    private TicketAllocation ticketAllocation; // null for events created before on-demand tickets
 
 
     public EventSubscription getEventSubscription() {
@@ -51,6 +53,14 @@ public class Event {
         this.ticketIds = ticketIds;
     }
 
+    public TicketAllocation getTicketAllocation() {
+        return ticketAllocation;
+    }
+
+    public void setTicketAllocation(TicketAllocation ticketAllocation) {
+        this.ticketAllocation = ticketAllocation;
+    }
+
     public LocalDateTime getEndDate() {
         return endDate;
     }
@@ -151,11 +161,11 @@ public class Event {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Event event = (Event) o;
-        return maxParticipants == event.maxParticipants && registeredParticipants == event.registeredParticipants && Objects.equals(id, event.id) && Objects.equals(startDate, event.startDate) && Objects.equals(endDate, event.endDate) && Objects.equals(place, event.place) && Objects.equals(speakers, event.speakers) && Objects.equals(topics, event.topics) && Objects.equals(description, event.description) && Objects.equals(host, event.host) && Objects.equals(title, event.title) && status == event.status && EventSubscription == event.EventSubscription && Objects.equals(pendingSpeakerRequests, event.pendingSpeakerRequests) && Objects.equals(ticketIds, event.ticketIds);
+        return maxParticipants == event.maxParticipants && registeredParticipants == event.registeredParticipants && Objects.equals(id, event.id) && Objects.equals(startDate, event.startDate) && Objects.equals(endDate, event.endDate) && Objects.equals(place, event.place) && Objects.equals(speakers, event.speakers) && Objects.equals(topics, event.topics) && Objects.equals(description, event.description) && Objects.equals(host, event.host) && Objects.equals(title, event.title) && status == event.status && EventSubscription == event.EventSubscription && Objects.equals(pendingSpeakerRequests, event.pendingSpeakerRequests) && Objects.equals(ticketIds, event.ticketIds) && ticketAllocation == event.ticketAllocation;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, startDate, endDate, place, speakers, topics, description, host, title, status, EventSubscription, pendingSpeakerRequests, maxParticipants, registeredParticipants, ticketIds);
+        return Objects.hash(id, startDate, endDate, place, speakers, topics, description, host, title, status, EventSubscription, pendingSpeakerRequests, maxParticipants, registeredParticipants, ticketIds, ticketAllocation);
     }
 }
@@ -0,0 +1,66 @@
+package Its.incom.pw5.persistence.model;
+
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+
+// Reference to an event kept in the user's details, with just enough data to list it without loading the event
+public class EventRef {
+    private ObjectId id;
+    private String title;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private String place;
+
+    public static EventRef of(Event event) {
+        EventRef ref = new EventRef();
+        ref.setId(event.getId());
+        ref.setTitle(event.getTitle());
+        ref.setStartDate(event.getStartDate());
+        ref.setEndDate(event.getEndDate());
+        ref.setPlace(event.getPlace());
+        return ref;
+    }
+
+    // Getters and Setters
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public void setId(ObjectId id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getPlace() {
+        return place;
+    }
+
+    public void setPlace(String place) {
+        this.place = place;
+    }
+}
@@ -0,0 +1,125 @@
+package Its.incom.pw5.persistence.model;
+
+import Its.incom.pw5.persistence.model.enums.EventStatus;
+import Its.incom.pw5.persistence.model.enums.EventSubscription;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Lightweight read model of an Event, without the speakers, pending speaker requests and ticket ids
+public class EventSummary {
+    public static final String[] FIELDS = {
+            "_id", "startDate", "endDate", "place", "topics", "description", "host", "title",
+            "status", "eventSubscription", "maxParticipants", "registeredParticipants"
+    };
+
+    private ObjectId id;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private String place;
+    private List<String> topics;
+    private String description;
+    private String host;
+    private String title;
+    private EventStatus status;
+    private EventSubscription eventSubscription;
+    private int maxParticipants;
+    private int registeredParticipants;
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public void setId(ObjectId id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getPlace() {
+        return place;
+    }
+
+    public void setPlace(String place) {
+        this.place = place;
+    }
+
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(List<String> topics) {
+        this.topics = topics;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public EventStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(EventStatus status) {
+        this.status = status;
+    }
+
+    public EventSubscription getEventSubscription() {
+        return eventSubscription;
+    }
+
+    public void setEventSubscription(EventSubscription eventSubscription) {
+        this.eventSubscription = eventSubscription;
+    }
+
+    public int getMaxParticipants() {
+        return maxParticipants;
+    }
+
+    public void setMaxParticipants(int maxParticipants) {
+        this.maxParticipants = maxParticipants;
+    }
+
+    public int getRegisteredParticipants() {
+        return registeredParticipants;
+    }
+
+    public void setRegisteredParticipants(int registeredParticipants) {
+        this.registeredParticipants = registeredParticipants;
+    }
+}
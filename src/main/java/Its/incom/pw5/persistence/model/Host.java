@@ -15,8 +15,8 @@ public class Host {
     private String hashedPsw;
     private String provisoryPsw;
     private String description; // ""
-    private List<Event> pastEvents; // []
-    private List<Event> programmedEvents; // []
+    private List<ObjectId> pastEvents; // [] event ids, the events themselves are queried by "host"
+    private List<ObjectId> programmedEvents; // [] event ids
     private String createdBy; // required
 
     private HostStatus hostStatus;
@@ -85,19 +85,19 @@ public class Host {
         this.description = description;
     }
 
-    public List<Event> getPastEvents() {
+    public List<ObjectId> getPastEvents() {
         return pastEvents;
     }
 
-    public void setPastEvents(List<Event> pastEvents) {
+    public void setPastEvents(List<ObjectId> pastEvents) {
         this.pastEvents = pastEvents;
     }
 
-    public List<Event> getProgrammedEvents() {
+    public List<ObjectId> getProgrammedEvents() {
         return programmedEvents;
     }
 
-    public void setProgrammedEvents(List<Event> programmedEvents) {
+    public void setProgrammedEvents(List<ObjectId> programmedEvents) {
         this.programmedEvents = programmedEvents;
     }
 
@@ -0,0 +1,56 @@
+package Its.incom.pw5.persistence.model;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+
+import java.time.LocalDateTime;
+
+// Lease on a clustered job, one document per job name. Whoever holds an unexpired lease runs the job;
+// the fencing token grows on every acquisition, so a node whose lease was taken over can tell it is stale.
+@MongoEntity(collection = "jobLease")
+public class JobLease {
+    private String id; // job name
+    private String owner;
+    private long fencingToken;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public void setAcquiredAt(LocalDateTime acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
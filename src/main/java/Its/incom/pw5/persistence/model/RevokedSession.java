@@ -0,0 +1,57 @@
+package Its.incom.pw5.persistence.model;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+
+// Revocation of signed session tokens: either a single token (tokenId) or every token
+// of a user or host issued before a given time (principalId + issuedBefore)
+@MongoEntity(collection = "revokedSession")
+public class RevokedSession {
+    private ObjectId id;
+    private String tokenId;
+    private String principalId;
+    private LocalDateTime issuedBefore;
+    private LocalDateTime expiresAt; // after this, every revoked token has expired anyway
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public void setId(ObjectId id) {
+        this.id = id;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public String getPrincipalId() {
+        return principalId;
+    }
+
+    public void setPrincipalId(String principalId) {
+        this.principalId = principalId;
+    }
+
+    public LocalDateTime getIssuedBefore() {
+        return issuedBefore;
+    }
+
+    public void setIssuedBefore(LocalDateTime issuedBefore) {
+        this.issuedBefore = issuedBefore;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,34 @@
+package Its.incom.pw5.persistence.model;
+
+import org.bson.types.ObjectId;
+
+// Reference to a ticket kept in the user's details; code and status are always read from the ticket itself
+public class TicketRef {
+    private ObjectId id;
+    private ObjectId eventId;
+
+    public static TicketRef of(Ticket ticket) {
+        TicketRef ref = new TicketRef();
+        ref.setId(ticket.getId());
+        ref.setEventId(ticket.getEventId());
+        return ref;
+    }
+
+    // Getters and Setters
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public void setId(ObjectId id) {
+        this.id = id;
+    }
+
+    public ObjectId getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(ObjectId eventId) {
+        this.eventId = eventId;
+    }
+}
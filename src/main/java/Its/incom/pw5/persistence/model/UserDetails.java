@@ -3,35 +3,37 @@ package Its.incom.pw5.persistence.model;
 import java.util.ArrayList;
 import java.util.List;
 
+// Booked and archived events and booked tickets are stored as references, older documents holding full
+// Event and Ticket copies still decode since the extra fields are skipped
 public class UserDetails {
-    private List<Event> bookedEvents = new ArrayList<>();
-    private List<Event> archivedEvents = new ArrayList<>();
-    private List<Ticket> bookedTickets = new ArrayList<>();
+    private List<EventRef> bookedEvents = new ArrayList<>();
+    private List<EventRef> archivedEvents = new ArrayList<>();
+    private List<TicketRef> bookedTickets = new ArrayList<>();
     private List<Topic> favouriteTopics = new ArrayList<>();
 
     // Getters and Setters
 
-    public List<Event> getBookedEvents() {
+    public List<EventRef> getBookedEvents() {
         return bookedEvents;
     }
 
-    public void setBookedEvents(List<Event> bookedEvents) {
+    public void setBookedEvents(List<EventRef> bookedEvents) {
         this.bookedEvents = bookedEvents;
     }
 
-    public List<Event> getArchivedEvents() {
+    public List<EventRef> getArchivedEvents() {
         return archivedEvents;
     }
 
-    public void setArchivedEvents(List<Event> archivedEvents) {
+    public void setArchivedEvents(List<EventRef> archivedEvents) {
         this.archivedEvents = archivedEvents;
     }
 
-    public List<Ticket> getBookedTickets() {
+    public List<TicketRef> getBookedTickets() {
         return bookedTickets;
     }
 
-    public void setBookedTickets(List<Ticket> bookedTickets) {
+    public void setBookedTickets(List<TicketRef> bookedTickets) {
         this.bookedTickets = bookedTickets;
     }
 
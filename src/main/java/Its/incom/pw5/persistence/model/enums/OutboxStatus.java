@@ -0,0 +1,8 @@
+package Its.incom.pw5.persistence.model.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD,
+}
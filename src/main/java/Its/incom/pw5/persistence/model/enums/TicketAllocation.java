@@ -0,0 +1,6 @@
+package Its.incom.pw5.persistence.model.enums;
+
+public enum TicketAllocation {
+    PREMINTED,
+    ON_DEMAND
+}
@@ -1,76 +1,232 @@
 package Its.incom.pw5.persistence.repository;
 
 import Its.incom.pw5.persistence.model.Event;
+import Its.incom.pw5.persistence.model.EventSummary;
+import Its.incom.pw5.persistence.model.enums.EventStatus;
+import Its.incom.pw5.persistence.model.enums.TicketAllocation;
 import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 @ApplicationScoped
 public class EventRepository implements PanacheMongoRepository<Event> {
 
-    // Regex to validate strings for topics and email fields
-    private static final Pattern SAFE_TOPIC_PATTERN = Pattern.compile("^[A-Za-z0-9_\\-\\s]+$");
-    private static final Pattern SAFE_EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    public void addEvent(Event event) {
+        persist(event);
+    }
+
+    // Edits only $set the fields an edit can change; a full document update would overwrite
+    // registeredParticipants and ticketIds with a stale read and undo concurrent seat claims.
+    // Returns false if a limited capacity no longer fits the registered participants.
+    public boolean updateDetails(Event event) {
+        Bson filter = event.getMaxParticipants() > 0
+                ? Filters.and(Filters.eq("_id", requireId(event)), Filters.lte("registeredParticipants", event.getMaxParticipants()))
+                : Filters.eq("_id", requireId(event));
+        return mongoCollection().updateOne(filter, Updates.combine(
+                Updates.set("title", event.getTitle()),
+                Updates.set("description", event.getDescription()),
+                Updates.set("place", event.getPlace()),
+                Updates.set("topics", event.getTopics()),
+                Updates.set("startDate", event.getStartDate()),
+                Updates.set("endDate", event.getEndDate()),
+                Updates.set("maxParticipants", event.getMaxParticipants()),
+                Updates.set("eventSubscription", event.getEventSubscription() == null ? null : event.getEventSubscription().name()),
+                Updates.set("pendingSpeakerRequests", event.getPendingSpeakerRequests())
+        )).getMatchedCount() > 0;
+    }
+
+    public void updateSpeakers(Event event) {
+        mongoCollection().updateOne(Filters.eq("_id", requireId(event)), Updates.combine(
+                Updates.set("speakers", event.getSpeakers()),
+                Updates.set("pendingSpeakerRequests", event.getPendingSpeakerRequests())
+        ));
+    }
 
-    // Validates a string input for topics
-    private String validateAndSanitizeTopic(String topic) {
-        if (topic == null || topic.isBlank()) {
-            throw new InvalidInputException("Topic cannot be null or empty.");
+    public void updateStatus(ObjectId eventId, EventStatus status) {
+        if (eventId == null || status == null) {
+            throw new InvalidInputException("Event ID and status cannot be null.");
         }
-        if (!SAFE_TOPIC_PATTERN.matcher(topic).matches()) {
-            throw new InvalidInputException("Invalid topic format.");
+        mongoCollection().updateOne(Filters.eq("_id", eventId), Updates.set("status", status.name()));
+    }
+
+    public void addTicketIds(ObjectId eventId, List<ObjectId> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            return;
         }
-        return topic.trim();
+        mongoCollection().updateOne(Filters.eq("_id", eventId), Updates.addEachToSet("ticketIds", ticketIds));
     }
 
-    // Validates and sanitizes an email
-    private String validateAndSanitizeEmail(String email) {
-        if (email == null || email.isBlank()) {
-            throw new InvalidInputException("Email cannot be null or empty.");
+    public void removeTicketIds(ObjectId eventId, List<ObjectId> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            return;
         }
-        if (!SAFE_EMAIL_PATTERN.matcher(email).matches()) {
-            throw new InvalidInputException("Invalid email format.");
+        mongoCollection().updateOne(Filters.eq("_id", eventId), Updates.pullAll("ticketIds", ticketIds));
+    }
+
+    private static ObjectId requireId(Event event) {
+        if (event == null || event.getId() == null) {
+            throw new InvalidInputException("Event ID cannot be null.");
         }
-        return email.trim();
+        return event.getId();
     }
 
-    public void addEvent(Event event) {
-        persist(event);
+    public List<Event> getAllEvents() {
+        return listAll();
     }
 
-    public void updateEvent(Event existingEvent) {
-        update(existingEvent);
+    // Loads the given events with a single $in query, in no particular order
+    public List<Event> findByIds(List<ObjectId> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return mongoCollection().find(Filters.in("_id", ids)).into(new ArrayList<>());
     }
 
-    // Fetches events by validated topic list
-    public List<Event> getEventsByTopic(List<String> topics) {
-        topics.forEach(this::validateAndSanitizeTopic);
-        return list("topics", topics);
+    // Keyset page of the event summaries matching the search ordered by (startDate, _id), starting right after the given position.
+    // One row more than the limit is read, so the caller can tell whether another page follows.
+    public FindIterable<EventSummary> findSummaries(EventSearch search, LocalDateTime afterStartDate, ObjectId afterId, int limit) {
+        if (limit <= 0) {
+            throw new InvalidInputException("Limit must be a positive number.");
+        }
+
+        List<Bson> conditions = new ArrayList<>();
+        if (search != null && !search.isEmpty()) {
+            conditions.add(search.toFilter());
+        }
+        if (afterId != null && afterStartDate != null) {
+            conditions.add(Filters.or(
+                    Filters.gt("startDate", afterStartDate),
+                    Filters.and(Filters.eq("startDate", afterStartDate), Filters.gt("_id", afterId))
+            ));
+        } else if (afterId != null) {
+            // Events without a start date sort first, so the page continues with the rest of them and then every dated one
+            conditions.add(Filters.or(
+                    Filters.ne("startDate", null),
+                    Filters.and(Filters.eq("startDate", null), Filters.gt("_id", afterId))
+            ));
+        }
+
+        return mongoCollection()
+                .find(conditions.isEmpty() ? new Document() : Filters.and(conditions), EventSummary.class)
+                .projection(Projections.include(EventSummary.FIELDS))
+                .sort(Sorts.ascending("startDate", "_id"))
+                .limit(limit + 1)
+                .batchSize(limit + 1);
     }
 
-    // Fetches events by date (no input sanitization needed for LocalDateTime)
-    public List<Event> getEventsByDate(LocalDateTime date) {
-        if (date == null) {
-            throw new InvalidInputException("Date cannot be null.");
+    public void deleteEvent(Event event) {
+        delete(event);
+    }
+
+    // Streams the id and host of the CONFIRMED events that ended before the given date; the caller closes the cursor
+    public MongoCursor<EventSummary> streamExpiredConfirmed(LocalDateTime now, int batchSize) {
+        return mongoCollection()
+                .find(Filters.and(
+                        Filters.eq("status", EventStatus.CONFIRMED.name()),
+                        Filters.lt("endDate", now)), EventSummary.class)
+                .projection(Projections.include("_id", "host"))
+                .batchSize(batchSize)
+                .cursor();
+    }
+
+    // Archives the given events and drops the deleted unassigned tickets from their ticketIds in one update
+    public long archiveAll(List<ObjectId> eventIds, List<ObjectId> removedTicketIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return 0;
         }
-        return list("date", date);
+
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.set("status", EventStatus.ARCHIVED.name()));
+        if (removedTicketIds != null && !removedTicketIds.isEmpty()) {
+            updates.add(Updates.pullAll("ticketIds", removedTicketIds));
+        }
+
+        return mongoCollection().updateMany(
+                Filters.and(Filters.in("_id", eventIds), Filters.eq("status", EventStatus.CONFIRMED.name())),
+                Updates.combine(updates)
+        ).getModifiedCount();
     }
 
-    // Fetches events by validated speaker email
-    public List<Event> getEventsBySpeakerMail(String speakerMail) {
-        String sanitizedEmail = validateAndSanitizeEmail(speakerMail);
-        return list("speakers.email", sanitizedEmail);
+    // Atomically claims a seat: the counter is only incremented while the event is bookable and not full.
+    // Returns the updated event, or null if no seat could be claimed.
+    public Event claimSeat(ObjectId eventId, ObjectId newTicketId) {
+        if (eventId == null) {
+            throw new InvalidInputException("Event ID cannot be null.");
+        }
+
+        Bson filter = Filters.and(
+                Filters.eq("_id", eventId),
+                Filters.eq("status", EventStatus.CONFIRMED.name()),
+                Filters.gt("endDate", LocalDateTime.now()),
+                Filters.or(
+                        Filters.lte("maxParticipants", 0),
+                        Filters.expr(new Document("$lt", List.of("$registeredParticipants", "$maxParticipants")))
+                )
+        );
+
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.inc("registeredParticipants", 1));
+        if (newTicketId != null) {
+            updates.add(Updates.addToSet("ticketIds", newTicketId));
+        }
+
+        return mongoCollection().findOneAndUpdate(filter, Updates.combine(updates),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
     }
 
-    public List<Event> getAllEvents() {
-        return listAll();
+    // Gives back a seat claimed with claimSeat when the rest of the booking could not be completed
+    public void releaseSeat(ObjectId eventId, ObjectId newTicketId) {
+        if (eventId == null) {
+            throw new InvalidInputException("Event ID cannot be null.");
+        }
+
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.inc("registeredParticipants", -1));
+        if (newTicketId != null) {
+            updates.add(Updates.pull("ticketIds", newTicketId));
+        }
+
+        mongoCollection().updateOne(
+                Filters.and(Filters.eq("_id", eventId), Filters.gt("registeredParticipants", 0)),
+                Updates.combine(updates));
     }
 
-    public void deleteEvent(Event event) {
-        delete(event);
+    // Ids of the active events that still use one pre-created ticket per seat
+    public List<ObjectId> findPreMintedEventIds() {
+        List<ObjectId> eventIds = new ArrayList<>();
+        mongoCollection().find(Filters.and(
+                        Filters.ne("ticketAllocation", TicketAllocation.ON_DEMAND.name()),
+                        Filters.ne("status", EventStatus.ARCHIVED.name()),
+                        Filters.gt("maxParticipants", 0)))
+                .projection(Projections.include("_id"))
+                .forEach(event -> eventIds.add(event.getId()));
+        return eventIds;
+    }
+
+    // Switches an event to on-demand tickets, dropping the removed unassigned tickets from its ticketIds
+    public void switchToOnDemandTickets(ObjectId eventId, List<ObjectId> removedTicketIds) {
+        if (eventId == null) {
+            throw new InvalidInputException("Event ID cannot be null.");
+        }
+
+        mongoCollection().updateOne(Filters.eq("_id", eventId), Updates.combine(
+                Updates.pullAll("ticketIds", removedTicketIds),
+                Updates.set("ticketAllocation", TicketAllocation.ON_DEMAND.name())
+        ));
     }
 }
@@ -0,0 +1,126 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.persistence.model.enums.EventStatus;
+import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Builds a single event filter out of the search criteria.
+// Values of one criterion are alternatives, different criteria must all match.
+public class EventSearch {
+
+    private static final Pattern SAFE_TOPIC_PATTERN = Pattern.compile("^[A-Za-z0-9_\\-\\s]+$");
+    private static final Pattern SAFE_NAME_PATTERN = Pattern.compile("^[A-Za-z\\s]+$");
+
+    private final List<String> topics = new ArrayList<>();
+    private final List<String[]> speakers = new ArrayList<>();
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private EventStatus status;
+    private String host;
+
+    public EventSearch topics(List<String> topics) {
+        if (topics != null) {
+            for (String topic : topics) {
+                if (topic == null || topic.isBlank()) {
+                    throw new InvalidInputException("Topic cannot be null or empty.");
+                }
+                if (!SAFE_TOPIC_PATTERN.matcher(topic).matches()) {
+                    throw new InvalidInputException("Invalid topic format.");
+                }
+                this.topics.add(topic.trim());
+            }
+        }
+        return this;
+    }
+
+    // Speakers are matched by "firstName lastName" against the speakers embedded in the event, only users with the SPEAKER role count
+    public EventSearch speakers(List<String> fullNames) {
+        if (fullNames != null) {
+            for (String fullName : fullNames) {
+                if (fullName == null || fullName.isBlank()) {
+                    throw new InvalidInputException("Full name cannot be null or empty.");
+                }
+                if (!SAFE_NAME_PATTERN.matcher(fullName).matches()) {
+                    throw new InvalidInputException("Invalid full name format.");
+                }
+                String[] names = fullName.trim().split("\\s+", 2);
+                if (names.length < 2) {
+                    throw new InvalidInputException("Full name must include both first and last name.");
+                }
+                this.speakers.add(names);
+            }
+        }
+        return this;
+    }
+
+    // Start date range, lower bound inclusive and upper bound exclusive
+    public EventSearch startingBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidInputException("Start of the date range must be before its end.");
+        }
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public EventSearch status(EventStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public EventSearch host(String host) {
+        if (host != null && host.isBlank()) {
+            throw new InvalidInputException("Host cannot be empty.");
+        }
+        this.host = host == null ? null : host.trim();
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return topics.isEmpty() && speakers.isEmpty() && from == null && to == null && status == null && host == null;
+    }
+
+    public Bson toFilter() {
+        List<Bson> conditions = new ArrayList<>();
+
+        if (!topics.isEmpty()) {
+            conditions.add(Filters.in("topics", topics));
+        }
+        if (from != null) {
+            conditions.add(Filters.gte("startDate", from));
+        }
+        if (to != null) {
+            conditions.add(Filters.lt("startDate", to));
+        }
+        if (status != null) {
+            conditions.add(Filters.eq("status", status.name()));
+        }
+        if (host != null) {
+            conditions.add(Filters.eq("host", host));
+        }
+        if (!speakers.isEmpty()) {
+            List<Bson> bySpeaker = new ArrayList<>();
+            for (String[] names : speakers) {
+                bySpeaker.add(Filters.elemMatch("speakers",
+                        Filters.and(
+                                Filters.eq("firstName", names[0]),
+                                Filters.eq("lastName", names[1]),
+                                Filters.eq("role", Role.SPEAKER.name()))));
+            }
+            conditions.add(bySpeaker.size() == 1 ? bySpeaker.get(0) : Filters.or(bySpeaker));
+        }
+
+        if (conditions.isEmpty()) {
+            return new Document();
+        }
+        return conditions.size() == 1 ? conditions.get(0) : Filters.and(conditions);
+    }
+}
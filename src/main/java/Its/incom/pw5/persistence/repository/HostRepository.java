@@ -2,12 +2,20 @@ package Its.incom.pw5.persistence.repository;
 
 import Its.incom.pw5.persistence.model.Host;
 import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -95,4 +103,57 @@ public class HostRepository implements PanacheMongoRepository<Host> {
         String sanitizedEmail = validateAndSanitizeEmail(email);
         return find("createdBy", sanitizedEmail).firstResult();
     }
+
+    // Adds a newly created event to the host's programmed events
+    public void addProgrammedEvent(ObjectId hostId, ObjectId eventId) {
+        if (hostId == null || eventId == null) {
+            throw new InvalidInputException("Host ID and event ID cannot be null.");
+        }
+        mongoCollection().updateOne(Filters.eq("_id", hostId), Updates.addToSet("programmedEvents", eventId));
+    }
+
+    // Moves archived events from their hosts' programmed events to their past events, with a single unordered bulk write
+    public void moveAllToPastEvents(Map<String, List<ObjectId>> eventIdsByHost) {
+        if (eventIdsByHost == null || eventIdsByHost.isEmpty()) {
+            return;
+        }
+
+        List<UpdateOneModel<Host>> updates = new ArrayList<>();
+        eventIdsByHost.forEach((hostName, eventIds) -> updates.add(new UpdateOneModel<>(
+                Filters.eq("name", hostName),
+                Updates.combine(
+                        Updates.pullAll("programmedEvents", eventIds),
+                        Updates.addEachToSet("pastEvents", eventIds)
+                ))));
+        mongoCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+    }
+
+    public void removeEvent(String hostName, ObjectId eventId) {
+        if (hostName == null || eventId == null) {
+            throw new InvalidInputException("Host name and event ID cannot be null.");
+        }
+        mongoCollection().updateOne(Filters.eq("name", hostName), Updates.combine(
+                Updates.pull("programmedEvents", eventId),
+                Updates.pull("pastEvents", eventId)
+        ));
+    }
+
+    // Replaces the full Event copies of hosts saved before events were stored as ids, with one server-side update
+    public long migrateLegacyEvents() {
+        Bson legacy = Filters.or(
+                Filters.type("programmedEvents", BsonType.DOCUMENT),
+                Filters.type("pastEvents", BsonType.DOCUMENT)
+        );
+        Bson toIds = new Document("$set", new Document()
+                .append("programmedEvents", toEventIds("$programmedEvents"))
+                .append("pastEvents", toEventIds("$pastEvents")));
+
+        return mongoCollection().updateMany(legacy, List.of(toIds)).getModifiedCount();
+    }
+
+    private static Document toEventIds(String field) {
+        return new Document("$map", new Document("input", new Document("$ifNull", List.of(field, List.of())))
+                .append("as", "event")
+                .append("in", new Document("$ifNull", List.of("$$event._id", "$$event"))));
+    }
 }
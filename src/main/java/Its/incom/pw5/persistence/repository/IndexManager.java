@@ -0,0 +1,176 @@
+package Its.incom.pw5.persistence.repository;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Declares the indexes behind every hot query and checks them, run by StartupJobs after boot.
+// createIndex is a no-op when the same index already exists, so every node can run this safely.
+@ApplicationScoped
+public class IndexManager {
+
+    private static final Logger LOG = Logger.getLogger(IndexManager.class);
+    private static final Duration TTL_GRACE = Duration.ofDays(1);
+
+    private final MongoDatabase database;
+
+    public IndexManager(MongoClient mongoClient, @ConfigProperty(name = "quarkus.mongodb.database") String databaseName) {
+        this.database = mongoClient.getDatabase(databaseName);
+    }
+
+    // Index manifest: collection name -> indexes that must exist on it
+    static Map<String, List<IndexModel>> declaredIndexes() {
+        Map<String, List<IndexModel>> indexes = new LinkedHashMap<>();
+
+        indexes.put("session", List.of(
+                unique(Indexes.ascending("cookieValue")),
+                expiring("expiresIn")
+        ));
+        // Multikey indexes used to find the users affected by an event change
+        indexes.put("user", List.of(
+                unique(Indexes.ascending("email")),
+                new IndexModel(Indexes.ascending("userDetails.bookedEvents._id")),
+                new IndexModel(Indexes.ascending("userDetails.archivedEvents._id"))
+        ));
+        indexes.put("ticket", List.of(
+                unique(Indexes.ascending("ticketCode")),
+                new IndexModel(Indexes.ascending("eventId", "status"))
+        ));
+        indexes.put("speakerEventRequest", List.of(
+                new IndexModel(Indexes.ascending("speakerEmail", "eventId"))
+        ));
+        indexes.put("waitingList", List.of(
+                new IndexModel(Indexes.ascending("eventId"))
+        ));
+        indexes.put("topic", List.of(
+                unique(Indexes.ascending("name"))
+        ));
+        indexes.put("verificationToken", List.of(
+                unique(Indexes.ascending("token")),
+                expiring("expirationDate")
+        ));
+        indexes.put("revokedSession", List.of(
+                expiring("expiresAt")
+        ));
+        // Sent mails are kept for a day, dead letters until someone removes them
+        indexes.put("mailOutbox", List.of(
+                new IndexModel(Indexes.ascending("status", "nextAttemptAt")),
+                expiring("sentAt")
+        ));
+        // Event search indexes all end on the (startDate, _id) page order
+        indexes.put("event", List.of(
+                new IndexModel(Indexes.ascending("status", "endDate")),
+                new IndexModel(Indexes.ascending("startDate", "_id")),
+                new IndexModel(Indexes.ascending("topics", "startDate", "_id")),
+                new IndexModel(Indexes.ascending("status", "startDate", "_id")),
+                new IndexModel(Indexes.ascending("host", "startDate", "_id")),
+                new IndexModel(Indexes.ascending("speakers.firstName", "speakers.lastName", "startDate", "_id"))
+        ));
+
+        return indexes;
+    }
+
+    private static IndexModel unique(Bson keys) {
+        return new IndexModel(keys, new IndexOptions().unique(true));
+    }
+
+    // TTL index: the server deletes documents once the date field is older than TTL_GRACE.
+    // Dates are local times stored as UTC, so the grace has to cover any timezone offset; the app checks expiry itself anyway.
+    private static IndexModel expiring(String dateField) {
+        return new IndexModel(Indexes.ascending(dateField),
+                new IndexOptions().expireAfter(TTL_GRACE.toSeconds(), TimeUnit.SECONDS));
+    }
+
+    public void provisionIndexes() {
+        long start = System.currentTimeMillis();
+        List<String> missing = new ArrayList<>();
+
+        declaredIndexes().forEach((collectionName, indexes) -> {
+            MongoCollection<Document> collection = database.getCollection(collectionName);
+
+            for (IndexModel index : indexes) {
+                try {
+                    collection.createIndex(index.getKeys(), index.getOptions());
+                } catch (MongoException e) {
+                    // e.g. duplicates preventing a unique index, or an index with the same name and other options
+                    LOG.errorf("Could not create index %s on %s: %s", index.getKeys(), collectionName, e.getMessage());
+                }
+            }
+
+            Set<String> existingKeys = listIndexKeys(collection);
+            Set<String> declaredKeys = new HashSet<>();
+            for (IndexModel index : indexes) {
+                String keys = describeKeys(Document.parse(index.getKeys().toBsonDocument().toJson()));
+                declaredKeys.add(keys);
+                if (!existingKeys.contains(keys)) {
+                    missing.add(collectionName + " " + keys);
+                }
+            }
+            for (String keys : existingKeys) {
+                if (!declaredKeys.contains(keys) && !"_id:1".equals(keys)) {
+                    LOG.infof("Index %s on %s is not declared in the index manifest", keys, collectionName);
+                }
+            }
+
+            reportUnusedIndexes(collectionName, collection);
+        });
+
+        if (missing.isEmpty()) {
+            LOG.infof("All declared indexes are in place (%d ms)", System.currentTimeMillis() - start);
+        } else {
+            LOG.warnf("Missing indexes after provisioning: %s", missing);
+        }
+    }
+
+    private Set<String> listIndexKeys(MongoCollection<Document> collection) {
+        List<Document> indexes = collection.listIndexes().into(new ArrayList<>());
+        return indexes.stream()
+                .map(index -> describeKeys(index.get("key", Document.class)))
+                .collect(Collectors.toSet());
+    }
+
+    // "field:direction" pairs in key order; numeric directions are normalized since the shell may store 1 as 1.0
+    private static String describeKeys(Document keys) {
+        return keys.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + (entry.getValue() instanceof Number number ? number.intValue() : entry.getValue()))
+                .collect(Collectors.joining(","));
+    }
+
+    // Reports indexes never used since the server started, based on $indexStats
+    private void reportUnusedIndexes(String collectionName, MongoCollection<Document> collection) {
+        try {
+            List<Document> stats = collection.aggregate(List.of(new Document("$indexStats", new Document())))
+                    .into(new ArrayList<>());
+            for (Document stat : stats) {
+                String name = stat.getString("name");
+                Document accesses = stat.get("accesses", Document.class);
+                Number ops = accesses == null ? null : accesses.get("ops", Number.class);
+                if (!"_id_".equals(name) && ops != null && ops.longValue() == 0) {
+                    LOG.infof("Index %s on %s has not been used since %s", name, collectionName, accesses.get("since"));
+                }
+            }
+        } catch (MongoException e) {
+            // $indexStats needs extra privileges on some deployments, the report is best effort
+            LOG.debugf("Index usage for %s not available: %s", collectionName, e.getMessage());
+        }
+    }
+}
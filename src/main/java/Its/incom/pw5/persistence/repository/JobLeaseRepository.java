@@ -0,0 +1,75 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.persistence.model.JobLease;
+import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import io.quarkus.mongodb.panache.PanacheMongoRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@ApplicationScoped
+public class JobLeaseRepository implements PanacheMongoRepositoryBase<JobLease, String> {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Takes the lease if it is free, expired or already ours. Returns the lease with its new fencing token, or null if another node holds it.
+    public JobLease tryAcquire(String jobName, String owner, Duration leaseDuration) {
+        if (jobName == null || owner == null) {
+            throw new InvalidInputException("Job name and owner cannot be null.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            return mongoCollection().findOneAndUpdate(
+                    Filters.and(
+                            Filters.eq("_id", jobName),
+                            Filters.or(Filters.lte("expiresAt", now), Filters.eq("owner", owner))
+                    ),
+                    Updates.combine(
+                            Updates.set("owner", owner),
+                            Updates.set("acquiredAt", now),
+                            Updates.set("expiresAt", now.plus(leaseDuration)),
+                            Updates.inc("fencingToken", 1L)
+                    ),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        } catch (MongoException e) {
+            // The lease exists and is held by someone else, so the upsert collided with it
+            if (e.getCode() == DUPLICATE_KEY) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    // Extends the lease, only while it is still held with the same fencing token
+    public boolean renew(String jobName, String owner, long fencingToken, Duration leaseDuration) {
+        return mongoCollection().updateOne(
+                Filters.and(Filters.eq("_id", jobName), Filters.eq("owner", owner), Filters.eq("fencingToken", fencingToken)),
+                Updates.set("expiresAt", LocalDateTime.now().plus(leaseDuration))
+        ).getModifiedCount() > 0;
+    }
+
+    // True while nobody acquired the lease after the given fencing token and it has not expired.
+    // Reads through the collection without a session, so a job transaction snapshot never hides the renewals.
+    public boolean isHeld(String jobName, String owner, long fencingToken) {
+        return mongoCollection().countDocuments(Filters.and(
+                Filters.eq("_id", jobName),
+                Filters.eq("owner", owner),
+                Filters.eq("fencingToken", fencingToken),
+                Filters.gt("expiresAt", LocalDateTime.now())
+        )) > 0;
+    }
+
+    public void release(String jobName, String owner, long fencingToken) {
+        mongoCollection().updateOne(
+                Filters.and(Filters.eq("_id", jobName), Filters.eq("owner", owner), Filters.eq("fencingToken", fencingToken)),
+                Updates.set("expiresAt", LocalDateTime.now())
+        );
+    }
+}
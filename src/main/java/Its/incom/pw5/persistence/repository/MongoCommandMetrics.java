@@ -0,0 +1,147 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.service.Tracer;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every command the Mongo driver sends, registered by the Quarkus Mongo client as a CommandListener bean.
+// - mongo_command_duration{collection,command}: timer
+// - mongo_documents_returned_total{collection,command}: documents in find/aggregate/getMore batches
+// - mongo_reply_bytes_total{collection,command}: encoded size of the server replies, off with pw5.mongo.reply-bytes.enabled=false
+// - mongo_slow_commands_total{collection,command,caller}: commands over the threshold, with the service method
+//   that issued them, so N+1 patterns show up per caller
+// Each command is also added as a span to the current request trace.
+@ApplicationScoped
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final Logger LOG = Logger.getLogger(MongoCommandMetrics.class);
+    private static final String SERVICE_PACKAGE = "Its.incom.pw5.service.";
+    // Handshake, auth and session commands, not issued by the application
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final Set<String> IGNORED_COMMANDS = Set.of(
+            "hello", "ismaster", "isMaster", "ping", "buildInfo", "saslStart", "saslContinue", "endSessions", "killCursors");
+
+    private final Tracer tracer;
+    private final Duration slowThreshold;
+    private final boolean replyBytesEnabled;
+    private final Map<Integer, String> collectionsByRequest = new ConcurrentHashMap<>();
+
+    @Inject
+    @RegistryType(type = MetricRegistry.Type.APPLICATION)
+    MetricRegistry metricRegistry;
+
+    public MongoCommandMetrics(Tracer tracer,
+                               @ConfigProperty(name = "pw5.mongo.slow-command-threshold", defaultValue = "PT0.1S") Duration slowThreshold,
+                               @ConfigProperty(name = "pw5.mongo.reply-bytes.enabled", defaultValue = "true") boolean replyBytesEnabled) {
+        this.tracer = tracer;
+        this.slowThreshold = slowThreshold;
+        this.replyBytesEnabled = replyBytesEnabled;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!IGNORED_COMMANDS.contains(event.getCommandName())) {
+            collectionsByRequest.put(event.getRequestId(), collectionName(event.getCommandName(), event.getCommand()));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String collection = collectionsByRequest.remove(event.getRequestId());
+        if (collection == null) {
+            return;
+        }
+        Tag[] tags = {new Tag("collection", collection), new Tag("command", event.getCommandName())};
+        long elapsedNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        metricRegistry.timer("mongo_command_duration", tags).update(Duration.ofNanos(elapsedNanos));
+        tracer.recordChild("mongo " + event.getCommandName() + " " + collection, elapsedNanos);
+
+        BsonDocument response = event.getResponse();
+        int documents = returnedDocuments(response);
+        if (documents > 0) {
+            metricRegistry.counter("mongo_documents_returned_total", tags).inc(documents);
+        }
+        if (replyBytesEnabled) {
+            metricRegistry.counter("mongo_reply_bytes_total", tags).inc(encodedSize(response));
+        }
+
+        if (elapsedNanos >= slowThreshold.toNanos()) {
+            reportSlow(collection, event.getCommandName(), elapsedNanos, documents);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        String collection = collectionsByRequest.remove(event.getRequestId());
+        if (collection == null) {
+            return;
+        }
+        Tag[] tags = {new Tag("collection", collection), new Tag("command", event.getCommandName())};
+        long elapsedNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        metricRegistry.timer("mongo_command_duration", tags).update(Duration.ofNanos(elapsedNanos));
+        metricRegistry.counter("mongo_command_failures_total", tags).inc();
+        tracer.recordChild("mongo " + event.getCommandName() + " " + collection + " (failed)", elapsedNanos);
+    }
+
+    // Only slow commands pay for the stack walk; the sync driver notifies on the calling thread
+    private void reportSlow(String collection, String command, long elapsedNanos, int documents) {
+        String caller = callingServiceMethod().orElse("unknown");
+        metricRegistry.counter("mongo_slow_commands_total",
+                new Tag("collection", collection), new Tag("command", command), new Tag("caller", caller)).inc();
+        LOG.warnf("Slow Mongo %s on %s: %d ms, %d document(s), called from %s",
+                command, collection, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), documents, caller);
+    }
+
+    private static Optional<String> callingServiceMethod() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICE_PACKAGE) && !frame.getClassName().contains("_"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(SERVICE_PACKAGE.length()) + "." + frame.getMethodName()));
+    }
+
+    // The collection is the value of the command key (find: "event"), except for getMore which names it separately
+    private static String collectionName(String commandName, BsonDocument command) {
+        BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : "none";
+    }
+
+    // Raw replies already know their size, any other document is encoded once to measure it
+    private static int encodedSize(BsonDocument response) {
+        RawBsonDocument raw = response instanceof RawBsonDocument rawResponse
+                ? rawResponse
+                : new RawBsonDocument(response, DOCUMENT_CODEC);
+        return raw.getByteBuffer().remaining();
+    }
+
+    private static int returnedDocuments(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor == null || !cursor.isDocument()) {
+            return 0;
+        }
+        BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                ? cursor.asDocument().get("firstBatch")
+                : cursor.asDocument().get("nextBatch");
+        return batch instanceof BsonArray array ? array.size() : 0;
+    }
+}
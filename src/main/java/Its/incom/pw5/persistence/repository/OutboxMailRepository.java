@@ -0,0 +1,102 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.persistence.model.OutboxMail;
+import Its.incom.pw5.persistence.model.enums.OutboxStatus;
+import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import io.quarkus.mongodb.panache.PanacheMongoRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ApplicationScoped
+public class OutboxMailRepository implements PanacheMongoRepository<OutboxMail> {
+
+    public void enqueue(OutboxMail mail) {
+        persist(prepare(mail, LocalDateTime.now()));
+    }
+
+    // Enqueues many mails with a single insert
+    public void enqueueAll(List<OutboxMail> mails) {
+        if (mails == null || mails.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        mails.forEach(mail -> prepare(mail, now));
+        persist(mails);
+    }
+
+    private OutboxMail prepare(OutboxMail mail, LocalDateTime now) {
+        if (mail == null || (mail.getTo().isEmpty() && mail.getBcc().isEmpty())) {
+            throw new InvalidInputException("Mail must have at least one recipient.");
+        }
+        mail.setStatus(OutboxStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setCreatedAt(now);
+        mail.setNextAttemptAt(now);
+        return mail;
+    }
+
+    // Atomically takes the oldest mail that is due, or whose sender died mid-send, and locks it until lockedUntil
+    public OutboxMail claimNext(LocalDateTime lockedUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoCollection().findOneAndUpdate(
+                Filters.or(
+                        Filters.and(Filters.eq("status", OutboxStatus.PENDING.name()), Filters.lte("nextAttemptAt", now)),
+                        Filters.and(Filters.eq("status", OutboxStatus.SENDING.name()), Filters.lt("lockedUntil", now))
+                ),
+                Updates.combine(
+                        Updates.set("status", OutboxStatus.SENDING.name()),
+                        Updates.set("lockedUntil", lockedUntil),
+                        Updates.inc("attempts", 1)
+                ),
+                new FindOneAndUpdateOptions().sort(Sorts.ascending("nextAttemptAt")).returnDocument(ReturnDocument.AFTER));
+    }
+
+    // The status updates below only apply to the claim they belong to: a late callback from an earlier,
+    // timed-out attempt finds another attempt count (or status) and changes nothing. They return false in that case.
+    private static Bson claimed(OutboxMail mail) {
+        return Filters.and(
+                Filters.eq("_id", mail.getId()),
+                Filters.eq("status", OutboxStatus.SENDING.name()),
+                Filters.eq("attempts", mail.getAttempts())
+        );
+    }
+
+    public boolean markSent(OutboxMail mail) {
+        return mongoCollection().updateOne(claimed(mail), Updates.combine(
+                Updates.set("status", OutboxStatus.SENT.name()),
+                Updates.set("sentAt", LocalDateTime.now()),
+                Updates.unset("lockedUntil"),
+                Updates.unset("lastError")
+        )).getModifiedCount() > 0;
+    }
+
+    public boolean scheduleRetry(OutboxMail mail, LocalDateTime nextAttemptAt, String error) {
+        return mongoCollection().updateOne(claimed(mail), Updates.combine(
+                Updates.set("status", OutboxStatus.PENDING.name()),
+                Updates.set("nextAttemptAt", nextAttemptAt),
+                Updates.set("lastError", error),
+                Updates.unset("lockedUntil")
+        )).getModifiedCount() > 0;
+    }
+
+    // Dead letter: kept for inspection, never retried automatically
+    public boolean markDead(OutboxMail mail, String error) {
+        return mongoCollection().updateOne(claimed(mail), Updates.combine(
+                Updates.set("status", OutboxStatus.DEAD.name()),
+                Updates.set("lastError", error),
+                Updates.unset("lockedUntil")
+        )).getModifiedCount() > 0;
+    }
+
+    public long countByStatus(OutboxStatus status) {
+        return count("status", status);
+    }
+}
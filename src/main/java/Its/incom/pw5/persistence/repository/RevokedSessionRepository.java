@@ -0,0 +1,29 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.persistence.model.RevokedSession;
+import Its.incom.pw5.service.exception.InvalidInputException;
+import io.quarkus.mongodb.panache.PanacheMongoRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ApplicationScoped
+public class RevokedSessionRepository implements PanacheMongoRepository<RevokedSession> {
+
+    public void addRevocation(RevokedSession revokedSession) {
+        if (revokedSession == null || revokedSession.getExpiresAt() == null) {
+            throw new InvalidInputException("Revocation and its expiration cannot be null.");
+        }
+        persist(revokedSession);
+    }
+
+    // Revocations that can still match a valid token
+    public List<RevokedSession> findActive(LocalDateTime now) {
+        return find("expiresAt > ?1", now).list();
+    }
+
+    public long deleteExpired(LocalDateTime now) {
+        return delete("expiresAt <= ?1", now);
+    }
+}
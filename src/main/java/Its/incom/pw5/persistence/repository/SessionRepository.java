@@ -5,6 +5,7 @@ import Its.incom.pw5.service.exception.InvalidInputException;
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.time.LocalDateTime;
 import java.util.regex.Pattern;
 
 @ApplicationScoped
@@ -33,6 +34,14 @@ public class SessionRepository implements PanacheMongoRepository<Session> {
         persist(newSession);
     }
 
+    // Delete every session expired before the given date
+    public long deleteExpired(LocalDateTime now) {
+        if (now == null) {
+            throw new InvalidInputException("Date cannot be null.");
+        }
+        return delete("expiresIn < ?1", now);
+    }
+
     // Delete session by validated cookie value
     public void deleteByCookieValue(String cookieValue) {
         String sanitizedCookieValue = validateAndSanitizeCookieValue(cookieValue);
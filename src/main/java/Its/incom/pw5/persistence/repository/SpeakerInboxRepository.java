@@ -75,6 +75,18 @@ public class SpeakerInboxRepository implements PanacheMongoRepository<SpeakerInb
         return find("eventId", sanitizedId).list();
     }
 
+    public long deleteByEventId(ObjectId id) {
+        ObjectId sanitizedId = validateAndSanitizeObjectId(id);
+        return delete("eventId", sanitizedId);
+    }
+
+    public long deleteByEventIds(List<ObjectId> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        return delete("eventId in ?1", ids);
+    }
+
     public boolean existsBySpeakerEmailAndEventId(String speakerEmail, ObjectId eventId) {
         String sanitizedEmail = validateAndSanitizeEmail(speakerEmail);
         ObjectId sanitizedEventId = validateAndSanitizeObjectId(eventId);
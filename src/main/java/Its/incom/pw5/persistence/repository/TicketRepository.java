@@ -3,10 +3,21 @@ package Its.incom.pw5.persistence.repository;
 import Its.incom.pw5.persistence.model.Ticket;
 import Its.incom.pw5.persistence.model.enums.TicketStatus;
 import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
@@ -46,6 +57,19 @@ public class TicketRepository implements PanacheMongoRepository<Ticket> {
         persist(ticket);
     }
 
+    // Inserts the tickets with a single unordered bulk insert, ids are assigned up front
+    public void addTickets(List<Ticket> tickets) {
+        if (tickets == null || tickets.isEmpty()) {
+            return;
+        }
+        for (Ticket ticket : tickets) {
+            if (ticket.getId() == null) {
+                ticket.setId(new ObjectId());
+            }
+        }
+        mongoCollection().insertMany(tickets, new InsertManyOptions().ordered(false));
+    }
+
     public void updateTicket(Ticket assignedTicket) {
         ObjectId sanitizedId = validateAndSanitizeObjectId(assignedTicket.getId());
 
@@ -100,4 +124,147 @@ public class TicketRepository implements PanacheMongoRepository<Ticket> {
     public void deleteTicket(Ticket existingTicket) {
         delete(existingTicket);
     }
+
+    // Atomically assigns one of the event's unassigned tickets to the user, returns null if none is left
+    public Ticket claimUnassignedTicket(ObjectId eventId, ObjectId userId) {
+        ObjectId sanitizedEventId = validateAndSanitizeObjectId(eventId);
+        ObjectId sanitizedUserId = validateAndSanitizeObjectId(userId);
+
+        return mongoCollection().findOneAndUpdate(
+                Filters.and(
+                        Filters.eq("eventId", sanitizedEventId),
+                        Filters.eq("userId", null),
+                        Filters.eq("status", TicketStatus.PENDING.name())
+                ),
+                Updates.set("userId", sanitizedUserId),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    // Puts back a ticket claimed with claimUnassignedTicket, unless it changed hands in the meantime
+    public boolean releaseTicket(Ticket ticket) {
+        ObjectId sanitizedId = validateAndSanitizeObjectId(ticket.getId());
+        ObjectId sanitizedUserId = validateAndSanitizeObjectId(ticket.getUserId());
+
+        return mongoCollection().updateOne(
+                Filters.and(Filters.eq("_id", sanitizedId), Filters.eq("userId", sanitizedUserId)),
+                Updates.set("userId", null)
+        ).getModifiedCount() > 0;
+    }
+
+    // Makes a pre-created ticket held by the user bookable again with a fresh code, in a single update.
+    // Returns false if the user no longer holds it.
+    public boolean unassignTicket(Ticket ticket, ObjectId userId) {
+        ObjectId sanitizedId = validateAndSanitizeObjectId(ticket.getId());
+        ObjectId sanitizedUserId = validateAndSanitizeObjectId(userId);
+
+        return mongoCollection().updateOne(
+                Filters.and(Filters.eq("_id", sanitizedId), Filters.eq("userId", sanitizedUserId)),
+                Updates.combine(
+                        Updates.set("userId", null),
+                        Updates.set("ticketCode", UUID.randomUUID().toString())
+                )
+        ).getModifiedCount() > 0;
+    }
+
+    // Hands an assigned ticket over to another user with a fresh ticket code
+    public void transferTicket(Ticket ticket, ObjectId newUserId) {
+        ObjectId sanitizedId = validateAndSanitizeObjectId(ticket.getId());
+        ObjectId sanitizedUserId = validateAndSanitizeObjectId(newUserId);
+
+        ticket.setUserId(sanitizedUserId);
+        ticket.setTicketCode(UUID.randomUUID().toString());
+        mongoCollection().updateOne(Filters.eq("_id", sanitizedId), Updates.combine(
+                Updates.set("userId", ticket.getUserId()),
+                Updates.set("ticketCode", ticket.getTicketCode())
+        ));
+    }
+
+    // Returns only the ids of the event's tickets that were never assigned to a user
+    public List<ObjectId> findUnassignedTicketIds(ObjectId eventId) {
+        return findUnassignedTicketIds(eventId, 0);
+    }
+
+    // Same as above, limited to the given number of ids (0 means no limit)
+    public List<ObjectId> findUnassignedTicketIds(ObjectId eventId, int limit) {
+        ObjectId sanitizedEventId = validateAndSanitizeObjectId(eventId);
+
+        List<ObjectId> ticketIds = new ArrayList<>();
+        mongoCollection().find(Filters.and(Filters.eq("eventId", sanitizedEventId), Filters.eq("userId", null)))
+                .projection(Projections.include("_id"))
+                .limit(limit)
+                .forEach(ticket -> ticketIds.add(ticket.getId()));
+        return ticketIds;
+    }
+
+    // Loads the given tickets with a single $in query, in no particular order
+    public List<Ticket> findByIds(List<ObjectId> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return mongoCollection().find(Filters.in("_id", ticketIds)).into(new ArrayList<>());
+    }
+
+    // Ids of the unassigned tickets of the given events
+    public List<ObjectId> findUnassignedTicketIds(List<ObjectId> eventIds) {
+        List<ObjectId> ticketIds = new ArrayList<>();
+        if (eventIds == null || eventIds.isEmpty()) {
+            return ticketIds;
+        }
+        mongoCollection().find(Filters.and(Filters.in("eventId", eventIds), Filters.eq("userId", null)))
+                .projection(Projections.include("_id"))
+                .forEach(ticket -> ticketIds.add(ticket.getId()));
+        return ticketIds;
+    }
+
+    // Expires the assigned, still PENDING tickets of the given events
+    public long expireAssignedTickets(List<ObjectId> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return 0;
+        }
+        return mongoCollection().updateMany(
+                Filters.and(
+                        Filters.in("eventId", eventIds),
+                        Filters.ne("userId", null),
+                        Filters.eq("status", TicketStatus.PENDING.name())),
+                Updates.set("status", TicketStatus.EXPIRED.name())
+        ).getModifiedCount();
+    }
+
+    // Deletes the given tickets unless a user claimed them in the meantime, returns the ids actually deleted
+    public List<ObjectId> deleteUnassignedByIds(List<ObjectId> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        mongoCollection().deleteMany(Filters.and(Filters.in("_id", ticketIds), Filters.eq("userId", null)));
+
+        // Tickets claimed between the read and the delete are still there
+        Set<ObjectId> remaining = new HashSet<>();
+        mongoCollection().find(Filters.in("_id", ticketIds))
+                .projection(Projections.include("_id"))
+                .forEach(ticket -> remaining.add(ticket.getId()));
+
+        List<ObjectId> deleted = new ArrayList<>(ticketIds);
+        deleted.removeAll(remaining);
+        return deleted;
+    }
+
+    // Ids of the users holding one of the event's tickets
+    public Set<ObjectId> findHolderIds(ObjectId eventId, List<ObjectId> ticketIds) {
+        return mongoCollection().distinct("userId",
+                        Filters.and(eventTickets(eventId, ticketIds), Filters.ne("userId", null)), ObjectId.class)
+                .into(new HashSet<>());
+    }
+
+    public long deleteByEvent(ObjectId eventId, List<ObjectId> ticketIds) {
+        return mongoCollection().deleteMany(eventTickets(eventId, ticketIds)).getDeletedCount();
+    }
+
+    // Tickets listed in the event's ticketIds, plus any ticket pointing back to the event
+    private Bson eventTickets(ObjectId eventId, List<ObjectId> ticketIds) {
+        ObjectId sanitizedEventId = validateAndSanitizeObjectId(eventId);
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            return Filters.eq("eventId", sanitizedEventId);
+        }
+        return Filters.or(Filters.in("_id", ticketIds), Filters.eq("eventId", sanitizedEventId));
+    }
 }
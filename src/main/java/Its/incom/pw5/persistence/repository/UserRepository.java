@@ -1,12 +1,23 @@
 package Its.incom.pw5.persistence.repository;
 
+import Its.incom.pw5.persistence.model.Event;
+import Its.incom.pw5.persistence.model.EventRef;
+import Its.incom.pw5.persistence.model.Ticket;
+import Its.incom.pw5.persistence.model.TicketRef;
 import Its.incom.pw5.persistence.model.User;
 import Its.incom.pw5.persistence.model.enums.Role;
 import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -99,4 +110,109 @@ public class UserRepository implements PanacheMongoRepository<User> {
 
         return find("email = ?1 and hashedPsw = ?2", sanitizedEmail, hashedPsw).firstResult();
     }
+
+    // Pushes the booking into the user's details, unless the event is already booked. Returns false if nothing was written.
+    public boolean addBooking(ObjectId userId, Event event, Ticket ticket) {
+        if (userId == null || event == null || ticket == null) {
+            throw new InvalidInputException("User ID, event and ticket cannot be null.");
+        }
+
+        return mongoCollection().updateOne(
+                Filters.and(
+                        Filters.eq("_id", userId),
+                        Filters.ne("userDetails.bookedEvents._id", event.getId())
+                ),
+                Updates.combine(
+                        Updates.push("userDetails.bookedEvents", EventRef.of(event)),
+                        Updates.push("userDetails.bookedTickets", TicketRef.of(ticket))
+                )
+        ).getModifiedCount() > 0;
+    }
+
+    // Pulls a single booking out of the user's details without rewriting the rest of the document.
+    // Returns false if the event was not booked (anymore), e.g. when the same booking is revoked twice concurrently.
+    public boolean removeBooking(ObjectId userId, ObjectId eventId, ObjectId ticketId) {
+        if (userId == null || eventId == null) {
+            throw new InvalidInputException("User ID and event ID cannot be null.");
+        }
+
+        return mongoCollection().updateOne(
+                Filters.and(
+                        Filters.eq("_id", userId),
+                        Filters.eq("userDetails.bookedEvents._id", eventId)
+                ),
+                Updates.combine(
+                        Updates.pull("userDetails.bookedEvents", Filters.eq("_id", eventId)),
+                        Updates.pull("userDetails.bookedTickets", ticketId != null
+                                ? Filters.eq("_id", ticketId)
+                                : Filters.eq("eventId", eventId))
+                )
+        ).getModifiedCount() > 0;
+    }
+
+    // Rewrites users still embedding full Event and Ticket copies into references, with one server-side update
+    public long migrateLegacyBookings() {
+        Document eventRef = new Document("_id", "$$item._id")
+                .append("title", "$$item.title")
+                .append("startDate", "$$item.startDate")
+                .append("endDate", "$$item.endDate")
+                .append("place", "$$item.place");
+        Document ticketRef = new Document("_id", "$$item._id")
+                .append("eventId", "$$item.eventId");
+
+        Bson legacy = Filters.or(
+                Filters.exists("userDetails.bookedEvents.speakers"),
+                Filters.exists("userDetails.bookedEvents.description"),
+                Filters.exists("userDetails.archivedEvents.speakers"),
+                Filters.exists("userDetails.archivedEvents.description"),
+                Filters.exists("userDetails.bookedTickets.ticketCode")
+        );
+        Bson toRefs = new Document("$set", new Document()
+                .append("userDetails.bookedEvents", mapArray("$userDetails.bookedEvents", eventRef))
+                .append("userDetails.archivedEvents", mapArray("$userDetails.archivedEvents", eventRef))
+                .append("userDetails.bookedTickets", mapArray("$userDetails.bookedTickets", ticketRef)));
+
+        return mongoCollection().updateMany(legacy, List.of(toRefs)).getModifiedCount();
+    }
+
+    private static Document mapArray(String field, Document in) {
+        return new Document("$map", new Document("input", new Document("$ifNull", List.of(field, List.of())))
+                .append("as", "item")
+                .append("in", in));
+    }
+
+    // Users holding one of the given tickets or having the event among their booked or archived events
+    private Bson affectedByEvent(ObjectId eventId, Collection<ObjectId> ticketHolderIds) {
+        if (eventId == null) {
+            throw new InvalidInputException("Event ID cannot be null.");
+        }
+
+        List<Bson> conditions = new ArrayList<>();
+        conditions.add(Filters.eq("userDetails.bookedEvents._id", eventId));
+        conditions.add(Filters.eq("userDetails.archivedEvents._id", eventId));
+        if (ticketHolderIds != null && !ticketHolderIds.isEmpty()) {
+            conditions.add(Filters.in("_id", ticketHolderIds));
+        }
+        return Filters.or(conditions);
+    }
+
+    public List<String> findEmailsAffectedByEvent(ObjectId eventId, Collection<ObjectId> ticketHolderIds) {
+        List<String> emails = new ArrayList<>();
+        mongoCollection().find(affectedByEvent(eventId, ticketHolderIds))
+                .projection(Projections.include("email"))
+                .forEach(user -> emails.add(user.getEmail()));
+        return emails;
+    }
+
+    // Pulls the event and its tickets out of the affected users' details with a single bulk update
+    public long removeEventReferences(ObjectId eventId, Collection<ObjectId> ticketHolderIds) {
+        return mongoCollection().updateMany(
+                affectedByEvent(eventId, ticketHolderIds),
+                Updates.combine(
+                        Updates.pull("userDetails.bookedEvents", Filters.eq("_id", eventId)),
+                        Updates.pull("userDetails.archivedEvents", Filters.eq("_id", eventId)),
+                        Updates.pull("userDetails.bookedTickets", Filters.eq("eventId", eventId))
+                )
+        ).getModifiedCount();
+    }
 }
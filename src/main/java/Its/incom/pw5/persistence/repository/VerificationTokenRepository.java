@@ -6,7 +6,6 @@ import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.regex.Pattern;
 
 @ApplicationScoped
@@ -46,8 +45,8 @@ public class VerificationTokenRepository implements PanacheMongoRepository<Verif
         delete(token);
     }
 
-    public List<VerificationToken> findExpiredTokens(LocalDateTime now) {
+    public long deleteExpiredTokens(LocalDateTime now) {
         LocalDateTime sanitizedDate = validateAndSanitizeDate(now);
-        return find("expirationDate < ?1", sanitizedDate).list();
+        return delete("expirationDate < ?1", sanitizedDate);
     }
 }
@@ -2,6 +2,8 @@ package Its.incom.pw5.rest;
 
 import Its.incom.pw5.persistence.model.*;
 import Its.incom.pw5.persistence.model.enums.UserStatus;
+import Its.incom.pw5.rest.filter.Authenticated;
+import Its.incom.pw5.rest.filter.CurrentPrincipal;
 import Its.incom.pw5.service.*;
 import Its.incom.pw5.service.exception.HostAlreadyExistsException;
 import Its.incom.pw5.service.exception.HostCreationException;
@@ -9,8 +11,6 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.NewCookie;
 import jakarta.ws.rs.core.Response;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -24,20 +24,20 @@ public class AuthResource {
     private final MailService mailService;
     private final HostService hostService;
     private final NotificationService notificationService;
+    private final CurrentPrincipal currentPrincipal;
 
-    public AuthResource(AuthService authService, SessionService sessionService, UserService userService, MailService mailService, HostService hostService, NotificationService notificationService) {
+    public AuthResource(AuthService authService, SessionService sessionService, UserService userService, MailService mailService, HostService hostService, NotificationService notificationService, CurrentPrincipal currentPrincipal) {
         this.authService = authService;
         this.sessionService = sessionService;
         this.userService = userService;
         this.mailService = mailService;
         this.hostService = hostService;
         this.notificationService = notificationService;
+        this.currentPrincipal = currentPrincipal;
     }
 
     @POST
     @Path("/register")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response register(User user) {
         authService.checkNewUserCredentials(user);
@@ -55,8 +55,6 @@ public class AuthResource {
 
     @POST
     @Path("/login")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response login(User user) {
         User validUser = userService.checkUserCredentials(user.getEmail(), user.getHashedPsw());
@@ -93,21 +91,9 @@ public class AuthResource {
 
     @GET
     @Path("/get-authenticated-user")
-    public Response getAuthenticatedUser(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response getAuthenticatedUser() {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(Map.of("message", "User not found."))
@@ -124,8 +110,6 @@ public class AuthResource {
 
     @PUT
     @Path("/confirm/{token}")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response confirm(@PathParam("token") String token) {
         VerificationToken verificationToken = mailService.getVerificationToken(token);
         if (verificationToken == null) {
@@ -153,24 +137,10 @@ public class AuthResource {
 
     @GET
     @Path("/send-confirmation-mail")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response sendConfirmationMail(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response sendConfirmationMail() {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("message", "User not found."))
@@ -197,8 +167,6 @@ public class AuthResource {
 
     @DELETE
     @Path("/logout")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response logout(@CookieParam("SESSION_ID") String sessionCookie) {
         if (sessionCookie == null || sessionCookie.isEmpty()) {
             return Response.status(Response.Status.BAD_REQUEST)
@@ -225,26 +193,12 @@ public class AuthResource {
     //create a new host
     @POST
     @Path("/register-host")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response registerHost(@CookieParam("SESSION_ID") String sessionId, Host host) {
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response registerHost(Host host) {
         try {
-            if (sessionId == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "Session cookie not found."))
-                        .build();
-            }
-
-            Session session = sessionService.getSession(sessionId);
-            if (session == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "Invalid session cookie."))
-                        .build();
-            }
-            // Get the user by session's user ID
-            User user = userService.getUserById(session.getUserId());
+            User user = currentPrincipal.getUser();
             if (user == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity(Map.of("message", "User not found."))
@@ -257,14 +211,7 @@ public class AuthResource {
                         .build();
             }
 
-            // Check if sessions provides a Host
-            if (hostService.getHostById(session.getUserId()) != null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "User is already a host."))
-                        .build();
-            }
-
-            hostService.create(session.getUserId(), host);
+            hostService.create(currentPrincipal.getId(), host);
 
             //notification of the new host creation request
             Host newHost = hostService.getHostByEmail(host.getEmail());
@@ -297,8 +244,6 @@ public class AuthResource {
     // login as host
     @POST
     @Path("/login-host")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response loginHost(Host host) {
         try {
@@ -347,31 +292,9 @@ public class AuthResource {
     // get authenticated host
     @GET
     @Path("/get-authenticated-host")
-    public Response getAuthenticatedHost(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        // Get the user from the session
-        User user = userService.getUserById(session.getUserId());
-        Host host;
-        if (user == null) {
-            // Get the host from the session userId which is the host id
-            host = hostService.getHostById(session.getUserId());
-        } else {
-            // Get the host from the user
-            host = hostService.getHostByUserCreatorEmail(user.getEmail());
-        }
-
+    @Authenticated
+    public Response getAuthenticatedHost() {
+        Host host = currentPrincipal.getHost();
         if (host == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(Map.of("message", "Host not found."))
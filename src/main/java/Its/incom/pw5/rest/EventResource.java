@@ -1,17 +1,21 @@
 package Its.incom.pw5.rest;
 
 import Its.incom.pw5.persistence.model.*;
+import Its.incom.pw5.persistence.model.enums.EventStatus;
 import Its.incom.pw5.persistence.model.enums.Role;
-import Its.incom.pw5.persistence.model.enums.UserStatus;
+import Its.incom.pw5.persistence.repository.EventSearch;
+import Its.incom.pw5.rest.filter.Authenticated;
+import Its.incom.pw5.rest.filter.CurrentPrincipal;
 import Its.incom.pw5.service.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.bson.types.ObjectId;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -20,55 +24,24 @@ import java.util.Map;
 @Produces(MediaType.APPLICATION_JSON)
 public class EventResource {
     private final EventService eventService;
-    private final SessionService sessionService;
-    private final UserService userService;
     private final MailService mailService;
-    private final HostService hostService;
     private final TicketService ticketService;
+    private final CurrentPrincipal currentPrincipal;
+    private final ObjectMapper objectMapper;
 
 
-    public EventResource(EventService eventService, SessionService sessionService, UserService userService, MailService mailService, HostService hostService, TicketService ticketService) {
+    public EventResource(EventService eventService, MailService mailService, TicketService ticketService, CurrentPrincipal currentPrincipal, ObjectMapper objectMapper) {
         this.eventService = eventService;
-        this.sessionService = sessionService;
-        this.userService = userService;
         this.mailService = mailService;
-        this.hostService = hostService;
         this.ticketService = ticketService;
+        this.currentPrincipal = currentPrincipal;
+        this.objectMapper = objectMapper;
     }
-    @POST
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response createEvent(@CookieParam("SESSION_ID") String sessionId, Event event) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        // Get the user from the session
-        User user = userService.getUserById(session.getUserId());
-        Host host;
-        if (user == null) {
-            // Get the host from the session userId which is the host id
-            host = hostService.getHostById(session.getUserId());
-        } else {
-            if (UserStatus.VERIFIED != user.getStatus()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "User is not verified."))
-                        .build();
-            }
-
-            // Get the host from the user
-            host = hostService.getHostByUserCreatorEmail(user.getEmail());
-        }
 
+    @POST
+    @Authenticated(verified = true)
+    public Response createEvent(Event event) {
+        Host host = currentPrincipal.getHost();
         if (host == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(Map.of("message", "Host not found."))
@@ -99,39 +72,9 @@ public class EventResource {
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response updateEventAsHost(@PathParam("id") ObjectId id, Event updatedEvent, @QueryParam("speakerEmail") String speakerEmail, @CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null || sessionId.isBlank()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        // Get the user from the session
-        User user = userService.getUserById(session.getUserId());
-        Host host;
-        if (user == null) {
-            // Get the host from the session userId which is the host id
-            host = hostService.getHostById(session.getUserId());
-        } else {
-            if (UserStatus.VERIFIED != user.getStatus()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "User is not verified."))
-                        .build();
-            }
-
-            // Get the host from the user
-            host = hostService.getHostByUserCreatorEmail(user.getEmail());
-        }
-
+    @Authenticated(verified = true)
+    public Response updateEventAsHost(@PathParam("id") ObjectId id, Event updatedEvent, @QueryParam("speakerEmail") String speakerEmail) {
+        Host host = currentPrincipal.getHost();
         if (host == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(Map.of("message", "Host not found."))
@@ -160,36 +103,14 @@ public class EventResource {
 
     @DELETE
     @Path("/{id}")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteEvent(@PathParam("id") ObjectId id, @CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null || sessionId.isBlank()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        // Get the user from the session
-        User user = userService.getUserById(session.getUserId());
-        Host host;
+    @Authenticated
+    public Response deleteEvent(@PathParam("id") ObjectId id) {
+        Host host = currentPrincipal.getHost();
         boolean isAdmin = false;
-        if (user == null) {
-            // Get the host from the session userId which is the host id
-            host = hostService.getHostById(session.getUserId());
-        } else {
+        if (!currentPrincipal.isHost()) {
             // Check if the user is an admin
-            isAdmin = user.getRole() == Role.ADMIN;
-
-            // Get the host from the user
-            host = hostService.getHostByUserCreatorEmail(user.getEmail());
+            isAdmin = currentPrincipal.get().getRole() == Role.ADMIN;
 
             // Check if the event exists
             Event event = eventService.getEventByObjectId(id);
@@ -200,7 +121,7 @@ public class EventResource {
             }
 
             // Allow deletion if the user is either the admin or the creator of the event
-            if (!isAdmin && !event.getHost().trim().equalsIgnoreCase(host.getName().trim())) {
+            if (!isAdmin && (host == null || !event.getHost().trim().equalsIgnoreCase(host.getName().trim()))) {
                 return Response.status(Response.Status.FORBIDDEN)
                         .entity(Map.of("message", "User is not authorized to delete this event."))
                         .build();
@@ -227,50 +148,21 @@ public class EventResource {
 
     @PUT
     @Path("/book")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response bookEvent(@CookieParam("SESSION_ID") String sessionId, Map<String, String> body) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        Host host = hostService.getHostById(session.getUserId());
-        if (host != null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Hosts cannot book events."))
-                    .build();
-        }
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER, verified = true)
+    public Response bookEvent(Map<String, String> body) {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-
-        if (UserStatus.VERIFIED != user.getStatus()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User is not verified."))
-                    .build();
-        }
-
         String id = body.get("id");
 
         ObjectId eventId = new ObjectId(id);
 
-        eventService.checkAndBookEvent(eventId, user);
-
-        Event event = eventService.getEventById(eventId);
+        Event event = eventService.checkAndBookEvent(eventId, user);
 
         mailService.sendBookingConfirmationMail(user.getEmail(), event);
 
@@ -285,36 +177,16 @@ public class EventResource {
 
     @PUT
     @Path("/revoke")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response revokeEvent(@CookieParam("SESSION_ID") String sessionId, Map<String, String> body) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER, verified = true)
+    public Response revokeEvent(Map<String, String> body) {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        if (UserStatus.VERIFIED != user.getStatus()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User is not verified."))
-                    .build();
-        }
-
         String id = body.get("id");
 
         ObjectId eventId = new ObjectId(id);
@@ -336,33 +208,18 @@ public class EventResource {
 
     @GET
     @Path("/booked")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getUserBookedEvents(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null || sessionId.isBlank()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        // Retrieve User
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response getUserBookedEvents() {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        List<Event> bookedEvents = user.getUserDetails().getBookedEvents();
-        List<Ticket> bookedTickets = user.getUserDetails().getBookedTickets();
+        List<Event> bookedEvents = eventService.getBookedEvents(user);
+        List<Ticket> bookedTickets = eventService.getBookedTickets(user);
 
         for (Ticket ticket : bookedTickets) {
             String ticketCode = ticket.getTicketCode();
@@ -381,37 +238,17 @@ public class EventResource {
 
     @GET
     @Path("/archived")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getArchivedEvents(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER, verified = true)
+    public Response getArchivedEvents() {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        if (UserStatus.VERIFIED != user.getStatus()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User is not verified."))
-                    .build();
-        }
-
-        List<Event> archivedEvents = user.getUserDetails().getArchivedEvents();
+        List<Event> archivedEvents = eventService.getArchivedEvents(user);
 
         Map<String, Object> responseBody = Map.of(
                 "message", "Archived events retrieved successfully.",
@@ -423,84 +260,65 @@ public class EventResource {
     }
 
     @GET
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getEvents(@QueryParam("topics") List<String> topics, @QueryParam("date") String date, @QueryParam("speakers") List<String> speakers) {
-        List<Event> events = new ArrayList<>();
-
-        if ((topics == null || topics.isEmpty()) &&
-            (date == null || date.isEmpty()) &&
-            (speakers == null || speakers.isEmpty())) {
-            events = eventService.getAllEvents();
-        } else {
-            if (topics != null && !topics.isEmpty()) {
-                List<Event> eventsByTopic = eventService.getEventsByTopic(topics);
-                if (eventsByTopic != null) {
-                    events.addAll(eventsByTopic);
-                }
-            }
+    public Response getEvents(@QueryParam("topics") List<String> topics, @QueryParam("date") String date, @QueryParam("speakers") List<String> speakers,
+                              @QueryParam("from") String from, @QueryParam("to") String to, @QueryParam("status") EventStatus status,
+                              @QueryParam("host") String host, @QueryParam("after") String after, @QueryParam("limit") Integer limit) {
+        // Every combination of filters runs as one query, sorted and paginated by the database.
+        // Filtered and unfiltered searches both answer with the EventSummary page, full events come from GET /event/{id}
+        EventSearch search = eventService.buildEventSearch(topics, date, from, to, speakers, status, host);
+        int pageSize = limit == null ? EventService.DEFAULT_PAGE_SIZE : limit;
+        Iterable<EventSummary> page = eventService.getEventSummaries(search, after, pageSize);
+
+        return Response.ok(streamEventSummaries(page, pageSize))
+                .build();
+    }
 
-            if (date != null && !date.isEmpty()) {
-                List<Event> eventsByDate = eventService.getEventsByDate(date);
-                if (eventsByDate != null) {
-                    events.addAll(eventsByDate);
+    // Writes {"message", "events", "nextCursor"} one summary at a time; nextCursor is null on the last page
+    private StreamingOutput streamEventSummaries(Iterable<EventSummary> page, int limit) {
+        return output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartObject();
+                generator.writeStringField("message", "Events retrieved successfully.");
+                generator.writeArrayFieldStart("events");
+
+                // The page holds one extra row when another page follows; it is not written, only used to emit the cursor
+                EventSummary last = null;
+                int written = 0;
+                boolean hasMore = false;
+                Iterator<EventSummary> iterator = page.iterator();
+                try {
+                    while (iterator.hasNext()) {
+                        EventSummary summary = iterator.next();
+                        if (written == limit) {
+                            hasMore = true;
+                            break;
+                        }
+                        last = summary;
+                        generator.writeObject(last);
+                        written++;
+                    }
+                } finally {
+                    // Release the database cursor even if the client goes away mid-stream
+                    if (iterator instanceof AutoCloseable closeable) {
+                        try {
+                            closeable.close();
+                        } catch (Exception ignored) {
+                        }
+                    }
                 }
-            }
 
-            if (speakers != null && !speakers.isEmpty()) {
-                List<Event> eventsBySpeaker = eventService.getEventsBySpeaker(speakers);
-                if (eventsBySpeaker != null) {
-                    events.addAll(eventsBySpeaker);
-                }
+                generator.writeEndArray();
+                generator.writeStringField("nextCursor", hasMore ? eventService.getPageCursor(last) : null);
+                generator.writeEndObject();
             }
-        }
-
-        Map<String, Object> responseBody = Map.of(
-                "message", "Events retrieved successfully.",
-                "events", events
-        );
-
-        return Response.ok(responseBody)
-                .build();
+        };
     }
 
     @POST
     @Path("/admin")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response createEventAsAdmin(@CookieParam("SESSION_ID") String sessionId, Event event) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-        User user = userService.getUserById(session.getUserId());
-
-        if (user == null) {
-            System.out.println("No user found for session ID: " + session.getUserId());
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not found."))
-                    .build();
-        }
-
-        System.out.println("User found: " + user.getEmail() + ", Role: " + user.getRole());
-
-        if (user.getRole() == null || !Role.ADMIN.equals(user.getRole())) {
-            System.out.println("User role check failed. Expected: ADMIN, Found: " + user.getRole());
-            return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("message", "User is not an admin."))
-                    .build();
-        }
-
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response createEventAsAdmin(Event event) {
         Event createdEvent = eventService.createEvent(event, "Admin");
         Map<String, Object> responseBody = Map.of(
                 "message", "Event created successfully by admin.",
@@ -514,40 +332,8 @@ public class EventResource {
 
     @PUT
     @Path("/admin/{id}")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response updateEventAsAdmin(@PathParam("id") ObjectId id, Event updatedEvent, @CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null || sessionId.isBlank()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-
-        if (user == null) {
-            System.out.println("No user found for session ID: " + session.getUserId());
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not found."))
-                    .build();
-        }
-
-        System.out.println("User found: " + user.getEmail() + ", Role: " + user.getRole());
-
-        if (user.getRole() == null || !Role.ADMIN.equals(user.getRole())) {
-            System.out.println("User role check failed. Expected: ADMIN, Found: " + user.getRole());
-            return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("message", "User is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response updateEventAsAdmin(@PathParam("id") ObjectId id, Event updatedEvent) {
         Event event = eventService.getEventByObjectId(id);
         if (event == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -567,40 +353,8 @@ public class EventResource {
 
     @DELETE
     @Path("/event/{id}")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response deleteEventAsAdmin(@PathParam("id") ObjectId id, @CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null || sessionId.isBlank()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-
-        if (user == null) {
-            System.out.println("No user found for session ID: " + session.getUserId());
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not found."))
-                    .build();
-        }
-
-        System.out.println("User found: " + user.getEmail() + ", Role: " + user.getRole());
-
-        if (user.getRole() == null || !Role.ADMIN.equals(user.getRole())) {
-            System.out.println("User role check failed. Expected: ADMIN, Found: " + user.getRole());
-            return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("message", "User is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response deleteEventAsAdmin(@PathParam("id") ObjectId id) {
         Event event = eventService.getEventByObjectId(id);
         if (event == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -617,4 +371,19 @@ public class EventResource {
         return Response.ok(responseBody)
                 .build();
     }
+
+    @PUT
+    @Path("/admin/migrate-tickets")
+    @Authenticated(roles = Role.ADMIN)
+    public Response migrateTicketsAsAdmin() {
+        int migratedEvents = eventService.migrateAllToOnDemandTickets();
+
+        Map<String, Object> responseBody = Map.of(
+                "message", "Events migrated to on-demand tickets successfully.",
+                "migratedEvents", migratedEvents
+        );
+
+        return Response.ok(responseBody)
+                .build();
+    }
 }
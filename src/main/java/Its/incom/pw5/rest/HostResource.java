@@ -1,11 +1,14 @@
 package Its.incom.pw5.rest;
 
 import Its.incom.pw5.persistence.model.Event;
+import Its.incom.pw5.persistence.model.EventSummary;
 import Its.incom.pw5.persistence.model.Host;
 import Its.incom.pw5.persistence.model.Session;
-import Its.incom.pw5.persistence.model.User;
 import Its.incom.pw5.persistence.model.enums.EventStatus;
 import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.persistence.repository.EventSearch;
+import Its.incom.pw5.rest.filter.Authenticated;
+import Its.incom.pw5.rest.filter.CurrentPrincipal;
 import Its.incom.pw5.rest.model.PasswordEditRequest;
 import Its.incom.pw5.service.*;
 import Its.incom.pw5.service.exception.HostDeleteException;
@@ -16,11 +19,10 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.NewCookie;
 import jakarta.ws.rs.core.Response;
 import org.bson.types.ObjectId;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,21 +31,19 @@ import java.util.Map;
 public class HostResource {
     private final HostService hostService;
     private final SessionService sessionService;
-    private final UserService userService;
     private final EventService eventService;
+    private final CurrentPrincipal currentPrincipal;
 
-    public HostResource(HostService hostService, SessionService sessionService, UserService userService, EventService eventService) {
+    public HostResource(HostService hostService, SessionService sessionService, EventService eventService, CurrentPrincipal currentPrincipal) {
         this.hostService = hostService;
         this.sessionService = sessionService;
-        this.userService = userService;
         this.eventService = eventService;
+        this.currentPrincipal = currentPrincipal;
     }
 
     //get all hosts
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response getAll() {
         try {
             List<Host> hosts = hostService.getAll();
@@ -63,8 +63,6 @@ public class HostResource {
     @GET
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response getHostById(@PathParam("id") ObjectId hostId) {
         Host host = hostService.getHostById(hostId.toHexString());
         if (host == null) {
@@ -79,32 +77,10 @@ public class HostResource {
     @Path("/change-password")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response changePsw(@CookieParam("SESSION_ID") String sessionId, PasswordEditRequest passwordEditRequest) {
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response changePsw(PasswordEditRequest passwordEditRequest) {
         try {
-            //find user session
-            if (sessionId == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "Session cookie not found."))
-                        .build();
-            }
-
-            Session session = sessionService.getSession(sessionId);
-            if (session == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "Invalid session cookie."))
-                        .build();
-            }
-
-            User user = userService.getUserById(session.getUserId());
-            if (user == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "User not found."))
-                        .build();
-            }
-
-            Host host = hostService.getHostByUserCreatorEmail(user.getEmail());
+            Host host = currentPrincipal.getHost();
 
             if (host == null) {
                 throw new HostNotFoundException("Host not found");
@@ -123,7 +99,7 @@ public class HostResource {
                     "/",                    // Path
                     null,                   // Domain (null uses request domain)
                     null,                   // Comment
-                    (int) java.time.Duration.between(LocalDateTime.now(), session.getExpiresIn()).getSeconds(), // Max age in seconds
+                    (int) java.time.Duration.between(LocalDateTime.now(), hostSession.getExpiresIn()).getSeconds(), // Max age in seconds
                     false                   // Secure flag (true if using HTTPS)
             );
 
@@ -153,23 +129,9 @@ public class HostResource {
     @Path("confirm-event/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response confirmEvent(@CookieParam("SESSION_ID") String sessionId, @PathParam("id") ObjectId eventId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        Host host = hostService.getHostById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.HOST)
+    public Response confirmEvent(@PathParam("id") ObjectId eventId) {
+        Host host = currentPrincipal.getHost();
         if (host == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(Map.of("message", "Host not found."))
@@ -201,20 +163,10 @@ public class HostResource {
                     .build();
         }
 
-        //update event status and host programmed events
+        //update event status, the host only keeps the event id
         event.setStatus(EventStatus.CONFIRMED);
         eventService.updateEventStatus(event);
 
-        List<Event> hostProgrammedEvents = host.getProgrammedEvents();
-        for (Event e : hostProgrammedEvents) {
-            if (e.getId().equals(event.getId())) {
-                e.setStatus(EventStatus.CONFIRMED);
-            }
-        }
-
-        host.setProgrammedEvents(hostProgrammedEvents);
-        hostService.updateEvents(host);
-
         Map<String, Object> responseBody = Map.of(
                 "message", "Event confirmed successfully.",
                 "event", event
@@ -223,28 +175,47 @@ public class HostResource {
         return Response.ok(responseBody).build();
     }
 
+    //Events of the host profile page, queried on the event "host" field and paginated like GET /event
+    @GET
+    @Path("/{id}/events")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getHostEvents(@PathParam("id") ObjectId hostId, @QueryParam("status") EventStatus status,
+                                  @QueryParam("after") String after, @QueryParam("limit") Integer limit) {
+        Host host = hostService.getHostById(hostId.toHexString());
+        if (host == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("message", "Host not found."))
+                    .build();
+        }
+
+        int pageSize = limit == null ? EventService.DEFAULT_PAGE_SIZE : limit;
+        List<EventSummary> events = new ArrayList<>();
+        eventService.getEventSummaries(new EventSearch().host(host.getName()).status(status), after, pageSize)
+                .forEach(events::add);
+
+        // An extra row past the page size means another page follows
+        boolean hasMore = events.size() > pageSize;
+        if (hasMore) {
+            events.remove(pageSize);
+        }
+
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("message", "Host events retrieved successfully.");
+        responseBody.put("events", events);
+        responseBody.put("nextCursor", hasMore ? eventService.getPageCursor(events.get(events.size() - 1)) : null);
+        return Response.ok(responseBody).build();
+    }
+
     //Update host description (for the host profile)
     @PUT
     @Path("/update-description")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updateDescription(@CookieParam("SESSION_ID") String sessionId, Host host) {
+    @Authenticated(kinds = AuthPrincipal.Kind.HOST)
+    public Response updateDescription(Host host) {
         try {
-            if (sessionId == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "Session cookie not found."))
-                        .build();
-            }
-
-            Session session = sessionService.getSession(sessionId);
-            if (session == null) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "Invalid session cookie."))
-                        .build();
-            }
-
-            Host loggedHost = hostService.getHostById(session.getUserId());
-            if (host == null) {
+            Host loggedHost = currentPrincipal.getHost();
+            if (loggedHost == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity(Map.of("message", "Host not found."))
                         .build();
@@ -267,27 +238,8 @@ public class HostResource {
 
     @DELETE
     @Path("/{hostId}")
-    public Response deleteHost(@CookieParam("SESSION_ID") String sessionId, @PathParam("hostId") ObjectId hostId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response deleteHost(@PathParam("hostId") ObjectId hostId) {
         Host host = hostService.getHostById(hostId.toHexString());
         if (host == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -296,7 +248,7 @@ public class HostResource {
         }
 
         try {
-            hostService.deleteHost(user.getId().toHexString(), host);
+            hostService.deleteHost(currentPrincipal.getId(), host);
             return Response.ok(Map.of("message", "Host deleted successfully.")).build();
         } catch (HostNotFoundException | HostDeleteException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
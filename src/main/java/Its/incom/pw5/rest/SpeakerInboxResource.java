@@ -2,13 +2,14 @@ package Its.incom.pw5.rest;
 
 import Its.incom.pw5.persistence.model.SpeakerInbox;
 import Its.incom.pw5.persistence.model.enums.SpeakerInboxStatus;
+import Its.incom.pw5.rest.filter.Authenticated;
+import Its.incom.pw5.rest.filter.CurrentPrincipal;
+import Its.incom.pw5.service.AuthPrincipal;
 import Its.incom.pw5.service.SpeakerInboxService;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.bson.types.ObjectId;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
 import java.util.List;
 import java.util.Map;
@@ -16,20 +17,18 @@ import java.util.Map;
 @Path("/speaker-inbox")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
-@Counted(name = "api_calls_total", description = "Total number of API calls")
-@Timed(name = "api_call_duration", description = "Time taken to process API calls")
 public class SpeakerInboxResource {
     private final SpeakerInboxService speakerInboxService;
+    private final CurrentPrincipal currentPrincipal;
 
-    public SpeakerInboxResource(SpeakerInboxService speakerInboxService) {
+    public SpeakerInboxResource(SpeakerInboxService speakerInboxService, CurrentPrincipal currentPrincipal) {
         this.speakerInboxService = speakerInboxService;
+        this.currentPrincipal = currentPrincipal;
     }
 
 
     @PUT
     @Path("/{inboxId}/confirm")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response confirmRequest(@PathParam("inboxId") ObjectId inboxId) {
         try {
             SpeakerInbox confirmedRequest = speakerInboxService.confirmRequest(inboxId);
@@ -53,8 +52,6 @@ public class SpeakerInboxResource {
 
     @PUT
     @Path("/{inboxId}/reject")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response rejectRequest(@PathParam("inboxId") ObjectId inboxId) {
         try {
             SpeakerInbox rejectedRequest = speakerInboxService.rejectRequest(inboxId);
@@ -78,17 +75,10 @@ public class SpeakerInboxResource {
 
     @GET
     @Path("/my-requests")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response getMyRequests(@CookieParam("SESSION_ID") String sessionCookie, @QueryParam("status") SpeakerInboxStatus requestStatus) {
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response getMyRequests(@QueryParam("status") SpeakerInboxStatus requestStatus) {
         try {
-            if (sessionCookie == null || sessionCookie.isBlank()) {
-                throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("message", "You must be logged in to access this resource."))
-                        .build());
-            }
-
-            List<SpeakerInbox> userRequests = speakerInboxService.getRequestsForUser(sessionCookie, requestStatus);
+            List<SpeakerInbox> userRequests = speakerInboxService.getRequestsForUser(currentPrincipal.get().getEmail(), requestStatus);
 
             if (userRequests == null || userRequests.isEmpty()) {
                 Map<String, Object> responseBody = Map.of(
@@ -120,8 +110,6 @@ public class SpeakerInboxResource {
 
     @GET
     @Path("/{speakerId}/requests")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response getSpeakerConfirmedRequests(@PathParam("speakerId") ObjectId speakerId) {
         try {
             if (speakerId == null) {
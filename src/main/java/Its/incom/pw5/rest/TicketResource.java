@@ -1,13 +1,12 @@
 package Its.incom.pw5.rest;
 
-import Its.incom.pw5.persistence.model.Session;
 import Its.incom.pw5.persistence.model.Ticket;
-import Its.incom.pw5.persistence.model.User;
+import Its.incom.pw5.rest.filter.Authenticated;
+import Its.incom.pw5.rest.filter.CurrentPrincipal;
 import Its.incom.pw5.rest.model.ConfirmTicketRequest;
 import Its.incom.pw5.rest.model.ConfirmTicketResponse;
-import Its.incom.pw5.service.SessionService;
+import Its.incom.pw5.service.AuthPrincipal;
 import Its.incom.pw5.service.TicketService;
-import Its.incom.pw5.service.UserService;
 import jakarta.annotation.security.PermitAll;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -16,8 +15,6 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.bson.types.ObjectId;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
 import java.util.Map;
 
@@ -25,14 +22,12 @@ import java.util.Map;
 @Path("/ticket")
 public class TicketResource {
     private final TicketService ticketService;
-    private final SessionService sessionService;
-    private final UserService userService;
+    private final CurrentPrincipal currentPrincipal;
 
     @Inject
-    public TicketResource(TicketService ticketService, SessionService sessionService, UserService userService) {
+    public TicketResource(TicketService ticketService, CurrentPrincipal currentPrincipal) {
         this.ticketService = ticketService;
-        this.sessionService = sessionService;
-        this.userService = userService;
+        this.currentPrincipal = currentPrincipal;
     }
 
     @POST
@@ -59,33 +54,10 @@ public class TicketResource {
 
     @DELETE
     @Path("/delete")
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteTicket(@CookieParam("SESSION_ID") String sessionId, Map<String, String> requestBody) {
-
-        if (sessionId == null || sessionId.isBlank()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session ID is required."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session ID."))
-                    .build();
-        }
-
-        // Retrieve User
-        User user = userService.getUserById(session.getUserId());
-        if (user == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not found."))
-                    .build();
-        }
-
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response deleteTicket(Map<String, String> requestBody) {
         // Extract ticketId from request body
         String ticketIdStr = requestBody.get("ticketId");
         if (ticketIdStr == null || ticketIdStr.isBlank()) {
@@ -105,7 +77,7 @@ public class TicketResource {
 
         try {
             // Attempt to delete the ticket
-            ticketService.deleteTicket(objTicketId, user.getId().toHexString());
+            ticketService.deleteTicket(objTicketId, currentPrincipal.getId());
 
             Map<String, Object> responseBody = Map.of(
                     "message", "Ticket deleted successfully."
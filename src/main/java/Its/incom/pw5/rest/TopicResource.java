@@ -8,8 +8,6 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
 import java.util.List;
 import java.util.Map;
@@ -26,8 +24,6 @@ public class TopicResource {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response getTopics(@QueryParam("name") String topicName) {
 
         if (topicName == null) {
@@ -3,16 +3,17 @@ package Its.incom.pw5.rest;
 import Its.incom.pw5.persistence.model.*;
 import Its.incom.pw5.persistence.model.enums.NotificationStatus;
 import Its.incom.pw5.persistence.model.enums.Role;
-import Its.incom.pw5.persistence.model.enums.UserStatus;
+import Its.incom.pw5.rest.filter.Authenticated;
+import Its.incom.pw5.rest.filter.CurrentPrincipal;
 import Its.incom.pw5.rest.model.SpeakerResponse;
 import Its.incom.pw5.service.*;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.NewCookie;
 import jakarta.ws.rs.core.Response;
 import org.bson.types.ObjectId;
-import org.eclipse.microprofile.metrics.annotation.Counted;
-import org.eclipse.microprofile.metrics.annotation.Timed;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -21,15 +22,17 @@ import java.util.UUID;
 public class UserResource {
     private final UserService userService;
     private final SessionService sessionService;
+    private final CurrentPrincipal currentPrincipal;
     private final HostService hostService;
     private final MailService mailService;
     private final NotificationService notificationService;
     private final TopicService topicService;
     private final HashCalculator hashCalculator;
 
-    public UserResource(UserService userService, HashCalculator hashCalculator, SessionService sessionService, HostService hostService, MailService mailService, NotificationService notificationService, TopicService topicService) {
+    public UserResource(UserService userService, HashCalculator hashCalculator, SessionService sessionService, CurrentPrincipal currentPrincipal, HostService hostService, MailService mailService, NotificationService notificationService, TopicService topicService) {
         this.userService = userService;
         this.sessionService = sessionService;
+        this.currentPrincipal = currentPrincipal;
         this.hashCalculator = hashCalculator;
         this.hostService = hostService;
         this.mailService = mailService;
@@ -39,35 +42,8 @@ public class UserResource {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response getUsers(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (user == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not found."))
-                    .build();
-        }
-
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response getUsers() {
         List<User> userList = userService.getAllUsers();
 
         Map<String, Object> responseBody = Map.of(
@@ -83,34 +59,8 @@ public class UserResource {
     @DELETE
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response deleteUser(@PathParam("id") String id, @CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (user == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not found."))
-                    .build();
-        }
-
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
+    @Authenticated(roles = Role.ADMIN)
+    public Response deleteUser(@PathParam("id") String id) {
         // Check if the user to delete exists
         User userToDelete = userService.getUserById(id);
         if (userToDelete == null) {
@@ -132,35 +82,15 @@ public class UserResource {
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response updateUserToSpeaker(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
+    @Authenticated(kinds = AuthPrincipal.Kind.USER, verified = true)
+    public Response updateUserToSpeaker() {
+        User user = currentPrincipal.getUser();
         if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        if (UserStatus.VERIFIED != user.getStatus()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "User not verified."))
-                    .build();
-        }
-
         if (Role.ADMIN == user.getRole()) {
             return Response.status(Response.Status.FORBIDDEN)
                     .entity(Map.of("message", "Admins cannot change their role."))
@@ -176,7 +106,7 @@ public class UserResource {
                     "user", user
             );
 
-            return Response.ok(responseBody)
+            return withRefreshedSession(Response.ok(responseBody), user)
                     .build();
         } else {
             userService.updateUserToSpeaker(user);
@@ -187,16 +117,32 @@ public class UserResource {
                     "user", user
             );
 
-            return Response.ok(responseBody)
+            return withRefreshedSession(Response.ok(responseBody), user)
                     .build();
         }
     }
 
+    // Signed session tokens carry the role, so the caller gets a new one after changing it
+    private Response.ResponseBuilder withRefreshedSession(Response.ResponseBuilder response, User user) {
+        Session session = sessionService.reissueSession(user.getId().toHexString());
+        if (session == null) {
+            return response;
+        }
+
+        return response.cookie(new NewCookie(
+                "SESSION_ID",
+                session.getCookieValue(),
+                "/",
+                null,
+                null,
+                (int) java.time.Duration.between(LocalDateTime.now(), session.getExpiresIn()).getSeconds(),
+                false
+        ));
+    }
+
     @GET
     @Path("/speakers")
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
     public Response getSpeakers() {
         List<SpeakerResponse> speakers = userService.getAllSpeakers();
 
@@ -214,29 +160,8 @@ public class UserResource {
     @Path("/notification/all")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response getHostRequests(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response getHostRequests() {
         List<AdminNotification> notifications = notificationService.getAllNotifications();
 
         Map<String, Object> responseBody = Map.of(
@@ -253,29 +178,8 @@ public class UserResource {
     @Path("/notification")
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response getUnreadNotifications(@CookieParam("SESSION_ID") String sessionId, @QueryParam("status") NotificationStatus status) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response getUnreadNotifications(@QueryParam("status") NotificationStatus status) {
         List<AdminNotification> notifications = notificationService.getFilteredNotificationByStatus(status);
 
         Map<String, Object> responseBody = Map.of(
@@ -292,29 +196,8 @@ public class UserResource {
     @PUT
     @Path("/notification/{notificationId}/confirm")
     @Consumes(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response approveRequest(@CookieParam("SESSION_ID") String sessionId, @PathParam("notificationId") ObjectId notificationId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response approveRequest(@PathParam("notificationId") ObjectId notificationId) {
         AdminNotification notification = notificationService.getById(notificationId);
         if (notification == null || !notification.getStatus().equals(NotificationStatus.UNREAD)) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -347,29 +230,8 @@ public class UserResource {
     @PUT
     @Path("/notification/{notificationId}/reject")
     @Consumes(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response rejectRequest(@CookieParam("SESSION_ID") String sessionId, @PathParam("notificationId") ObjectId notificationId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-
-        User user = userService.getUserById(session.getUserId());
-        if (Role.ADMIN != user.getRole()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Logged user is not an admin."))
-                    .build();
-        }
-
+    @Authenticated(roles = Role.ADMIN)
+    public Response rejectRequest(@PathParam("notificationId") ObjectId notificationId) {
         AdminNotification notification = notificationService.getById(notificationId);
         if (notification == null || !notification.getStatus().equals(NotificationStatus.UNREAD)) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -401,24 +263,15 @@ public class UserResource {
     @Path("/favourite-topic/add/{topicId}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response addFavouriteTopic(@CookieParam("SESSION_ID") String sessionId, @PathParam("topicId") ObjectId topicId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response addFavouriteTopic(@PathParam("topicId") ObjectId topicId) {
+        User user = currentPrincipal.getUser();
+        if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
+                    .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        User user = userService.getUserById(session.getUserId());
-
         Topic topic = topicService.getTopicById(topicId);
         if (topic == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -444,22 +297,15 @@ public class UserResource {
     @Path("/favourite-topic/remove/{topicId}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response removeFavouriteTopic(@CookieParam("SESSION_ID") String sessionId, @PathParam("topicId") ObjectId topicId) {
-        if (sessionId == null) {
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response removeFavouriteTopic(@PathParam("topicId") ObjectId topicId) {
+        User user = currentPrincipal.getUser();
+        if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
+                    .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
-                    .build();
-        }
-        User user = userService.getUserById(session.getUserId());
         Topic topic = topicService.getTopicById(topicId);
         if (topic == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -485,23 +331,15 @@ public class UserResource {
     @Path("/favourite-topic")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    @Counted(name = "api_calls_total", description = "Total number of API calls")
-    @Timed(name = "api_call_duration", description = "Time taken to process API calls")
-    public Response getUserFavouriteTopics(@CookieParam("SESSION_ID") String sessionId) {
-        if (sessionId == null) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Session cookie not found."))
-                    .build();
-        }
-
-        Session session = sessionService.getSession(sessionId);
-        if (session == null) {
+    @Authenticated(kinds = AuthPrincipal.Kind.USER)
+    public Response getUserFavouriteTopics() {
+        User user = currentPrincipal.getUser();
+        if (user == null) {
             return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("message", "Invalid session cookie."))
+                    .entity(Map.of("message", "User not found."))
                     .build();
         }
 
-        User user = userService.getUserById(session.getUserId());
         List<Topic> userFavouriteTopics = user.getUserDetails().getFavouriteTopics();
 
         Map<String, Object> responseBody = Map.of(
@@ -0,0 +1,27 @@
+package Its.incom.pw5.rest.filter;
+
+import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.service.AuthPrincipal;
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks endpoints that need a valid SESSION_ID cookie; checked once per request by AuthenticationFilter.
+// Endpoints without it stay public.
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Authenticated {
+
+    // Who may call the endpoint
+    AuthPrincipal.Kind[] kinds() default {AuthPrincipal.Kind.USER, AuthPrincipal.Kind.HOST};
+
+    // User roles allowed to call the endpoint, any role if empty. Setting roles excludes hosts.
+    Role[] roles() default {};
+
+    // Users must have confirmed their email. Hosts are not affected.
+    boolean verified() default false;
+}
@@ -0,0 +1,99 @@
+package Its.incom.pw5.rest.filter;
+
+import Its.incom.pw5.persistence.model.enums.UserStatus;
+import Its.incom.pw5.service.AuthPrincipal;
+import Its.incom.pw5.service.SessionService;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Timer;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.jboss.logging.Logger;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Resolves the session principal once per request for endpoints annotated with @Authenticated
+@Provider
+@Authenticated
+@Priority(Priorities.AUTHENTICATION)
+public class AuthenticationFilter implements ContainerRequestFilter {
+
+    private static final Logger LOG = Logger.getLogger(AuthenticationFilter.class);
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    SessionService sessionService;
+
+    @Inject
+    CurrentPrincipal currentPrincipal;
+
+    @Inject
+    @RegistryType(type = MetricRegistry.Type.APPLICATION)
+    MetricRegistry metricRegistry;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Timer.Context timer = metricRegistry.timer("auth_resolution_duration").time();
+        try {
+            authenticate(requestContext);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private void authenticate(ContainerRequestContext requestContext) {
+        Authenticated rules = resourceInfo.getResourceMethod().getAnnotation(Authenticated.class);
+        if (rules == null) {
+            rules = resourceInfo.getResourceClass().getAnnotation(Authenticated.class);
+        }
+
+        Cookie cookie = requestContext.getCookies().get("SESSION_ID");
+        if (cookie == null || cookie.getValue() == null || cookie.getValue().isBlank()) {
+            abort(requestContext, Response.Status.UNAUTHORIZED, "Session cookie not found.");
+            return;
+        }
+
+        AuthPrincipal principal = sessionService.getPrincipal(cookie.getValue());
+        if (principal == null) {
+            abort(requestContext, Response.Status.UNAUTHORIZED, "Invalid session cookie.");
+            return;
+        }
+
+        if (!Arrays.asList(rules.kinds()).contains(principal.getKind())
+                || (rules.roles().length > 0 && principal.isHost())) {
+            abort(requestContext, Response.Status.FORBIDDEN,
+                    principal.isHost() ? "Hosts cannot access this resource." : "Users cannot access this resource.");
+            return;
+        }
+
+        if (rules.roles().length > 0 && !Arrays.asList(rules.roles()).contains(principal.getRole())) {
+            LOG.debugf("Role check failed for %s: expected %s", principal, Arrays.toString(rules.roles()));
+            abort(requestContext, Response.Status.FORBIDDEN, "User does not have the required role.");
+            return;
+        }
+
+        if (rules.verified() && !principal.isHost() && UserStatus.VERIFIED != principal.getStatus()) {
+            abort(requestContext, Response.Status.UNAUTHORIZED, "User is not verified.");
+            return;
+        }
+
+        currentPrincipal.set(cookie.getValue(), principal);
+    }
+
+    private void abort(ContainerRequestContext requestContext, Response.Status status, String message) {
+        requestContext.abortWith(Response.status(status)
+                .entity(Map.of("message", message))
+                .build());
+    }
+}
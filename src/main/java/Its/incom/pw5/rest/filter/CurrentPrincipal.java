@@ -0,0 +1,68 @@
+package Its.incom.pw5.rest.filter;
+
+import Its.incom.pw5.persistence.model.Host;
+import Its.incom.pw5.persistence.model.User;
+import Its.incom.pw5.service.AuthPrincipal;
+import Its.incom.pw5.service.HostService;
+import Its.incom.pw5.service.UserService;
+import jakarta.enterprise.context.RequestScoped;
+
+// Principal of the current request, set by AuthenticationFilter.
+// Full user and host documents are only loaded if the endpoint asks for them.
+@RequestScoped
+public class CurrentPrincipal {
+
+    private final UserService userService;
+    private final HostService hostService;
+
+    private String sessionId;
+    private AuthPrincipal principal;
+    private User user;
+    private Host host;
+    private boolean hostLoaded;
+
+    public CurrentPrincipal(UserService userService, HostService hostService) {
+        this.userService = userService;
+        this.hostService = hostService;
+    }
+
+    void set(String sessionId, AuthPrincipal principal) {
+        this.sessionId = sessionId;
+        this.principal = principal;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public AuthPrincipal get() {
+        return principal;
+    }
+
+    public String getId() {
+        return principal.getId();
+    }
+
+    public boolean isHost() {
+        return principal.isHost();
+    }
+
+    // Full user document, null when the session belongs to a host
+    public User getUser() {
+        if (user == null && !principal.isHost()) {
+            user = userService.getUserById(principal.getId());
+        }
+        return user;
+    }
+
+    // The logged host, or the host registered by the logged user
+    public Host getHost() {
+        if (!hostLoaded) {
+            host = principal.isHost()
+                    ? hostService.getHostById(principal.getId())
+                    : hostService.getHostByUserCreatorEmail(principal.getEmail());
+            hostLoaded = true;
+        }
+        return host;
+    }
+}
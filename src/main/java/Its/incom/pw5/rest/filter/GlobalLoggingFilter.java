@@ -1,28 +1,69 @@
 package Its.incom.pw5.rest.filter;
 
+import Its.incom.pw5.service.Tracer;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
-import jakarta.ws.rs.container.ContainerResponseContext;
-import jakarta.ws.rs.container.ContainerResponseFilter;
 import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
+import org.jboss.logging.MDC;
+import jakarta.inject.Inject;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
+// The only access log: one line per logged request, written once the response has been fully sent.
+// Errors (4xx/5xx) and requests slower than pw5.access-log.slow-threshold are always logged,
+// other responses only for a pw5.access-log.sample-rate share. Lines go to the async ACCESS handler
+// (logs/access.log, see application.properties) and carry the trace id of the request.
 @Provider
-public class GlobalLoggingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+@Priority(Priorities.AUTHENTICATION - 150)
+public class GlobalLoggingFilter implements ContainerRequestFilter {
 
     private static final Logger LOG = Logger.getLogger(GlobalLoggingFilter.class);
 
+    @Inject
+    @ConfigProperty(name = "pw5.access-log.sample-rate", defaultValue = "0.01")
+    double sampleRate;
+
+    @Inject
+    @ConfigProperty(name = "pw5.access-log.slow-threshold", defaultValue = "PT1S")
+    Duration slowThreshold;
+
+    @Inject
+    CurrentVertxRequest currentVertxRequest;
+
     @Override
-    public void filter(ContainerRequestContext requestContext) throws IOException {
-        LOG.infof("Incoming request: %s %s", requestContext.getMethod(), requestContext.getUriInfo().getRequestUri());
-        LOG.debugf("Headers: %s", requestContext.getHeaders());
+    public void filter(ContainerRequestContext requestContext) {
+        long start = System.nanoTime();
+        String method = requestContext.getMethod();
+        String path = requestContext.getUriInfo().getPath();
+        // Set by TracingFilter, which runs first; the end handler may run on another thread
+        Object traceId = MDC.get(Tracer.TRACE_ID_MDC_KEY);
+
+        // Logged once the response has been fully written, so streamed bodies are part of the duration
+        RoutingContext routingContext = currentVertxRequest.getCurrent();
+        routingContext.addEndHandler(result -> log(method, path, routingContext.response().getStatusCode(),
+                System.nanoTime() - start, traceId));
     }
 
-    @Override
-    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
-        LOG.infof("Outgoing response: %s, Status: %d", requestContext.getUriInfo().getRequestUri(), responseContext.getStatus());
-        LOG.debugf("Response headers: %s", responseContext.getHeaders());
+    private void log(String method, String path, int status, long elapsedNanos, Object traceId) {
+        Logger.Level level;
+        if (status >= 500 || elapsedNanos >= slowThreshold.toNanos()) {
+            level = Logger.Level.WARN;
+        } else if (status >= 400 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            level = Logger.Level.INFO;
+        } else {
+            return;
+        }
+
+        if (LOG.isEnabled(level)) {
+            LOG.logf(level, "trace=%s method=%s path=%s status=%d duration_ms=%d", traceId == null ? "-" : traceId,
+                    method, path, status, elapsedNanos / 1_000_000);
+        }
     }
 }
@@ -1,32 +1,99 @@
 package Its.incom.pw5.rest.filter;
 
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
-import jakarta.ws.rs.container.ContainerResponseContext;
-import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.ext.Provider;
 import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
 import org.eclipse.microprofile.metrics.annotation.RegistryType;
-import org.jboss.logging.Logger;
 import jakarta.inject.Inject;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-endpoint request metrics, keyed by route template (e.g. /event/{id}) rather than by the concrete URI:
+// - http_server_requests{route,method,status}: timer, exported with p50/p95/p99 quantiles in the Prometheus format
+// - http_server_errors_total{route,method,status}: requests that ended with a 5xx
+// - http_server_requests_in_flight{route,method}: requests currently being processed
+// Runs before authentication, so rejected requests are measured too. Latency is taken when the response
+// has been fully written, which includes streamed bodies.
 @Provider
-public class GlobalMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+@Priority(Priorities.AUTHENTICATION - 100)
+public class GlobalMetricsFilter implements ContainerRequestFilter {
+
+    private static final Map<Method, String> ROUTES = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> IN_FLIGHT = new ConcurrentHashMap<>();
 
-    private static final Logger LOG = Logger.getLogger(GlobalMetricsFilter.class);
+    @Context
+    ResourceInfo resourceInfo;
 
     @Inject
     @RegistryType(type = MetricRegistry.Type.APPLICATION)
     MetricRegistry metricRegistry;
 
+    @Inject
+    CurrentVertxRequest currentVertxRequest;
+
     @Override
     public void filter(ContainerRequestContext requestContext) {
-        metricRegistry.counter("global_api_calls_total").inc();
-        LOG.infof("Incoming request: %s %s", requestContext.getMethod(), requestContext.getUriInfo().getRequestUri());
+        String route = routeTemplate();
+        String method = requestContext.getMethod();
+        long start = System.nanoTime();
+        AtomicLong inFlight = inFlight(route, method);
+        inFlight.incrementAndGet();
+
+        RoutingContext routingContext = currentVertxRequest.getCurrent();
+        routingContext.addEndHandler(result -> {
+            inFlight.decrementAndGet();
+            int status = routingContext.response().getStatusCode();
+            Tag[] tags = {new Tag("route", route), new Tag("method", method), new Tag("status", String.valueOf(status))};
+            metricRegistry.timer("http_server_requests", tags).update(Duration.ofNanos(System.nanoTime() - start));
+            if (status >= 500) {
+                metricRegistry.counter("http_server_errors_total", tags).inc();
+            }
+        });
     }
 
-    @Override
-    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
-        LOG.infof("Outgoing response: %s, Status: %d", requestContext.getUriInfo().getRequestUri(), responseContext.getStatus());
+    // Class and method @Path joined, computed once per resource method
+    private String routeTemplate() {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return "UNMATCHED";
+        }
+        return ROUTES.computeIfAbsent(method, m -> {
+            StringBuilder route = new StringBuilder();
+            appendPath(route, resourceInfo.getResourceClass().getAnnotation(Path.class));
+            appendPath(route, m.getAnnotation(Path.class));
+            return route.length() == 0 ? "/" : route.toString();
+        });
+    }
+
+    private static void appendPath(StringBuilder route, Path path) {
+        if (path == null) {
+            return;
+        }
+        String value = path.value().replaceAll("^/+|/+$", "");
+        if (!value.isEmpty()) {
+            route.append('/').append(value);
+        }
+    }
+
+    private AtomicLong inFlight(String route, String method) {
+        return IN_FLIGHT.computeIfAbsent(method + " " + route, key -> {
+            AtomicLong counter = new AtomicLong();
+            metricRegistry.gauge("http_server_requests_in_flight", counter::get,
+                    new Tag("route", route), new Tag("method", method));
+            return counter;
+        });
     }
 }
@@ -1,16 +1,22 @@
 package Its.incom.pw5.rest.filter;
 
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.annotation.PreDestroy;
+import org.eclipse.microprofile.metrics.MetricID;
 import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.eclipse.microprofile.metrics.Timer;
 import org.eclipse.microprofile.metrics.annotation.RegistryType;
 import org.jboss.logging.Logger;
 import jakarta.inject.Inject;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
 
+// Writes a snapshot of the application metrics every pw5.metrics.snapshot-interval, one compact line per metric,
+// plus a last one on shutdown. Lines go to the async METRICS handler (logs/metrics.log, size-rotated, see
+// application.properties), so the scheduler thread never waits on disk and the files stay bounded.
 @ApplicationScoped
 public class MetricsLogger {
 
@@ -20,35 +26,41 @@ public class MetricsLogger {
     @RegistryType(type = MetricRegistry.Type.APPLICATION)
     MetricRegistry metricRegistry;
 
+    @Scheduled(every = "${pw5.metrics.snapshot-interval:60s}", delayed = "${pw5.metrics.snapshot-interval:60s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void logSnapshot() {
+        if (!LOG.isInfoEnabled()) {
+            return;
+        }
+        long takenAt = System.currentTimeMillis();
+
+        metricRegistry.getCounters().forEach((id, counter) ->
+                LOG.infof("%d counter %s count=%d", takenAt, describe(id), counter.getCount()));
+
+        metricRegistry.getGauges().forEach((id, gauge) ->
+                LOG.infof("%d gauge %s value=%s", takenAt, describe(id), gauge.getValue()));
+
+        metricRegistry.getTimers().forEach((id, timer) -> LOG.infof("%d timer %s %s", takenAt, describe(id), summarize(timer)));
+    }
+
     @PreDestroy
     public void logMetricsToFile() {
-        String filePath = "logs/metrics.log";
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            writer.write("==== Metrics Summary ====\n");
-
-            // Log each counter and timer metric
-            metricRegistry.getCounters().forEach((name, counter) -> {
-                try {
-                    writer.write(String.format("Counter [%s]: %d\n", name, counter.getCount()));
-                } catch (IOException e) {
-                    LOG.error("Error writing counter metric", e);
-                }
-            });
-
-            metricRegistry.getTimers().forEach((name, timer) -> {
-                try {
-                    writer.write(String.format("Timer [%s]: Count = %d, Total Time = %.3f seconds\n",
-                            name, timer.getCount(), timer.getSnapshot().getMean() / 1_000_000_000.0));
-                } catch (IOException e) {
-                    LOG.error("Error writing timer metric", e);
-                }
-            });
-
-            writer.write("==== End of Metrics ====\n\n");
-
-        } catch (IOException e) {
-            LOG.error("Failed to write metrics to file", e);
-        }
+        logSnapshot();
+    }
+
+    // Durations in milliseconds; total is the sum of all recorded durations, not the mean
+    private static String summarize(Timer timer) {
+        Snapshot snapshot = timer.getSnapshot();
+        return String.format(Locale.ROOT,
+                "count=%d rate1m=%.3f/s total=%.3f mean=%.3f p50=%.3f p95=%.3f p99=%.3f max=%.3f",
+                timer.getCount(), timer.getOneMinuteRate(), timer.getElapsedTime().toNanos() / 1_000_000.0,
+                snapshot.getMean() / 1_000_000.0, snapshot.getMedian() / 1_000_000.0,
+                snapshot.get95thPercentile() / 1_000_000.0, snapshot.get99thPercentile() / 1_000_000.0,
+                snapshot.getMax() / 1_000_000.0);
+    }
+
+    private static String describe(MetricID id) {
+        Map<String, String> tags = id.getTags();
+        return tags.isEmpty() ? id.getName() : id.getName() + "{" + id.getTagsAsString() + "}";
     }
 }
@@ -0,0 +1,69 @@
+package Its.incom.pw5.rest.filter;
+
+import Its.incom.pw5.service.Tracer;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+// Opens the request trace (see Tracer) with a root span named after the resource method, before any other filter.
+// The trace ends when the response has been fully written, not in the response filter: streamed bodies
+// (e.g. GET /event) keep reading their cursor after the filters ran. The trace id is returned in X-Trace-Id.
+@Provider
+@Priority(Priorities.AUTHENTICATION - 200)
+public class TracingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String SPAN_PROPERTY = TracingFilter.class.getName() + ".span";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    Tracer tracer;
+
+    @Inject
+    CurrentVertxRequest currentVertxRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String resourceMethod = resourceInfo.getResourceMethod() == null
+                ? "UNMATCHED"
+                : resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        Tracer.Span span = tracer.startTrace(requestContext.getMethod() + " " + resourceMethod);
+        if (span != null) {
+            requestContext.setProperty(SPAN_PROPERTY, span);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Tracer.Span span = (Tracer.Span) requestContext.getProperty(SPAN_PROPERTY);
+        if (span == null) {
+            return;
+        }
+        responseContext.getHeaders().putSingle("X-Trace-Id", span.getTraceId());
+
+        // Registered here rather than in the request filter so it runs after the end handlers of the
+        // metrics and access log filters, which still need the trace
+        RoutingContext routingContext = currentVertxRequest.getCurrent();
+        if (routingContext == null) {
+            span.setOutcome(String.valueOf(responseContext.getStatus()));
+            tracer.end(span);
+            return;
+        }
+        routingContext.addEndHandler(result -> {
+            span.setOutcome(result.succeeded()
+                    ? String.valueOf(routingContext.response().getStatusCode())
+                    : "connection closed");
+            tracer.end(span);
+        });
+    }
+}
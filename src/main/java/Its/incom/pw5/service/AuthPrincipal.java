@@ -0,0 +1,84 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.model.Host;
+import Its.incom.pw5.persistence.model.User;
+import Its.incom.pw5.persistence.model.enums.HostStatus;
+import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.persistence.model.enums.UserStatus;
+
+// What authentication needs to know about the owner of a session, without the full user or host document
+public class AuthPrincipal {
+
+    public enum Kind {
+        USER,
+        HOST
+    }
+
+    private final String id;
+    private final Kind kind;
+    private final String email;
+    private final Role role;             // null for hosts
+    private final UserStatus status;     // null for hosts
+    private final HostStatus hostStatus; // null for users
+
+    private AuthPrincipal(String id, Kind kind, String email, Role role, UserStatus status, HostStatus hostStatus) {
+        this.id = id;
+        this.kind = kind;
+        this.email = email;
+        this.role = role;
+        this.status = status;
+        this.hostStatus = hostStatus;
+    }
+
+    public static AuthPrincipal of(User user) {
+        return new AuthPrincipal(user.getId().toHexString(), Kind.USER, user.getEmail(), user.getRole(), user.getStatus(), null);
+    }
+
+    public static AuthPrincipal of(Host host) {
+        return new AuthPrincipal(host.getId().toHexString(), Kind.HOST, host.getEmail(), null, null, host.getHostStatus());
+    }
+
+    // Rebuilds a principal from the claims of a signed session token
+    public static AuthPrincipal restore(String id, Kind kind, String email, Role role, UserStatus status, HostStatus hostStatus) {
+        return new AuthPrincipal(id, kind, email, role, status, hostStatus);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isHost() {
+        return kind == Kind.HOST;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public UserStatus getStatus() {
+        return status;
+    }
+
+    public HostStatus getHostStatus() {
+        return hostStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthPrincipal{" +
+                "id='" + id + '\'' +
+                ", kind=" + kind +
+                ", role=" + role +
+                ", status=" + status +
+                ", hostStatus=" + hostStatus +
+                '}';
+    }
+}
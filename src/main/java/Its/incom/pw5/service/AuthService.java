@@ -1,23 +1,20 @@
 package Its.incom.pw5.service;
 
+import Its.incom.pw5.interceptor.ClusteredJob;
 import Its.incom.pw5.interceptor.GlobalLog;
 import Its.incom.pw5.persistence.model.User;
 import Its.incom.pw5.persistence.model.UserDetails;
-import Its.incom.pw5.persistence.model.VerificationToken;
 import Its.incom.pw5.persistence.model.enums.Role;
 import Its.incom.pw5.persistence.model.enums.UserStatus;
 import Its.incom.pw5.persistence.repository.AuthRepository;
 import Its.incom.pw5.persistence.repository.VerificationTokenRepository;
-import io.quarkus.runtime.StartupEvent;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.enterprise.event.Observes;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -78,34 +75,16 @@ public class AuthService {
         authRepository.register(newUser);
     }
 
-    public void onStartup(@Observes StartupEvent event) {
-        System.out.println("Application started, running archivePastEvents now...");
-        removeExpiredVerificationTokens();
-    }
-
+    // Fallback for the TTL index on expirationDate, which normally removes expired tokens on its own
+    @ClusteredJob("removeExpiredVerificationTokens")
     @Scheduled(cron = "0 0 0 * * ?")
     public void removeExpiredVerificationTokens() {
-        LocalDateTime now = LocalDateTime.now();
-        List<VerificationToken> expiredTokens = verificationTokenRepository.findExpiredTokens(now);
+        long deletedTokens = verificationTokenRepository.deleteExpiredTokens(LocalDateTime.now());
 
-        if (expiredTokens.isEmpty()) {
+        if (deletedTokens == 0) {
             System.out.println("No expired verification tokens were found during the latest cleanup.");
             return;
         }
-
-        // Collect information about deleted tokens
-        StringBuilder deletedTokensInfo = new StringBuilder();
-        expiredTokens.forEach(token -> {
-            verificationTokenRepository.deleteToken(token);
-            deletedTokensInfo.append(String.format("Deleted token for email: %s%n", token.getEmail()));
-        });
-
-        // Prepare and print the notification message
-        String subject = "Verification Token Cleanup Completed";
-        String body = String.format("Cleanup complete. Removed %d expired verification tokens.%n%nDetails:%n%s",
-                expiredTokens.size(),
-                deletedTokensInfo);
-        System.out.println(subject);
-        System.out.println(body);
+        System.out.println("Verification Token Cleanup Completed: removed " + deletedTokens + " expired verification tokens.");
     }
 }
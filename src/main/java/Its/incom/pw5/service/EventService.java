@@ -1,30 +1,41 @@
 package Its.incom.pw5.service;
 
+import Its.incom.pw5.interceptor.ClusteredJob;
 import Its.incom.pw5.interceptor.GlobalLog;
 import Its.incom.pw5.persistence.model.*;
 import Its.incom.pw5.persistence.model.enums.*;
 import Its.incom.pw5.persistence.repository.EventRepository;
+import Its.incom.pw5.persistence.repository.EventSearch;
 import Its.incom.pw5.persistence.repository.HostRepository;
 import Its.incom.pw5.persistence.repository.SpeakerInboxRepository;
 import Its.incom.pw5.persistence.repository.TicketRepository;
-import io.quarkus.runtime.StartupEvent;
+import Its.incom.pw5.service.exception.InvalidInputException;
+import com.mongodb.client.MongoCursor;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.enterprise.event.Observes;
-import jakarta.transaction.Transactional;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @GlobalLog
 @ApplicationScoped
 public class EventService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final Logger LOG = Logger.getLogger(EventService.class);
+
     private final EventRepository eventRepository;
     private final TopicService topicService;
     private final UserService userService;
@@ -33,8 +44,11 @@ public class EventService {
     private final MailService mailService;
     private final TicketRepository ticketRepository;
     private final HostRepository hostRepository;
+    private final JobLeaseService jobLeaseService;
+    private final int archiveBatchSize;
 
-    public EventService(EventRepository eventRepository, TicketRepository ticketRepository, TopicService topicService, UserService userService, SpeakerInboxRepository speakerInboxRepository, WaitingListService waitingListService, MailService mailService, HostRepository hostRepository) {
+    public EventService(EventRepository eventRepository, TicketRepository ticketRepository, TopicService topicService, UserService userService, SpeakerInboxRepository speakerInboxRepository, WaitingListService waitingListService, MailService mailService, HostRepository hostRepository,
+                        JobLeaseService jobLeaseService, @ConfigProperty(name = "pw5.archive.batch-size", defaultValue = "500") int archiveBatchSize) {
         this.eventRepository = eventRepository;
         this.topicService = topicService;
         this.ticketRepository = ticketRepository;
@@ -43,6 +57,8 @@ public class EventService {
         this.waitingListService = waitingListService;
         this.mailService = mailService;
         this.hostRepository = hostRepository;
+        this.jobLeaseService = jobLeaseService;
+        this.archiveBatchSize = archiveBatchSize;
     }
     public Event createEvent(Event event, String hostName) {
         return createEvent(event, hostName, null);
@@ -120,14 +136,9 @@ public class EventService {
         // Create and initialize a new event object
         Event newEvent = initializeNewEvent(event, hostName);
 
-        // Persist the Event to generate an ID
+        // Persist the Event to generate an ID. Tickets are minted at booking time, capacity is enforced by the counter.
         eventRepository.addEvent(newEvent);
 
-        // Pre-create tickets if the event has a maximum number of participants
-        if (newEvent.getMaxParticipants() > 0) {
-            createUnassignedTickets(newEvent);
-        }
-
         // Process pending speaker requests
         processPendingSpeakerRequests(newEvent.getPendingSpeakerRequests(), newEvent.getId());
 
@@ -148,24 +159,38 @@ public class EventService {
                         .build());
             }
 
-            if (host.getProgrammedEvents() == null) {
-                host.setProgrammedEvents(new ArrayList<>());
-            }
-            host.getProgrammedEvents().add(newEvent);
-            hostRepository.update(host);
+            hostRepository.addProgrammedEvent(host.getId(), newEvent.getId());
         }
         return newEvent;
     }
 
-    private void createUnassignedTickets(Event event) {
-        List<ObjectId> ticketIds = new ArrayList<>();
-        for (int i = 0; i < event.getMaxParticipants(); i++) {
-            Ticket ticket = new Ticket(null, event.getId(), TicketStatus.PENDING);
-            ticketRepository.addTicket(ticket);
-            ticketIds.add(ticket.getId());
+    // Adds or removes only the difference between the old and the new number of pre-created tickets
+    private void resizePreMintedTickets(Event event, int previousMaxParticipants) {
+        if (event.getTicketIds() == null) {
+            event.setTicketIds(new ArrayList<>());
+        }
+
+        int delta = event.getMaxParticipants() - previousMaxParticipants;
+        if (delta > 0) {
+            List<Ticket> newTickets = new ArrayList<>(delta);
+            for (int i = 0; i < delta; i++) {
+                newTickets.add(new Ticket(null, event.getId(), TicketStatus.PENDING));
+            }
+            ticketRepository.addTickets(newTickets);
+            List<ObjectId> newTicketIds = newTickets.stream().map(Ticket::getId).toList();
+            eventRepository.addTicketIds(event.getId(), newTicketIds);
+            event.getTicketIds().addAll(newTicketIds);
+        } else if (delta < 0) {
+            List<ObjectId> ticketIdsToDelete = ticketRepository.findUnassignedTicketIds(event.getId(), -delta);
+            if (ticketIdsToDelete.size() < -delta) {
+                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("message", "Not enough unassigned tickets to reduce the max participants."))
+                        .build());
+            }
+            List<ObjectId> deletedTicketIds = ticketRepository.deleteUnassignedByIds(ticketIdsToDelete);
+            eventRepository.removeTicketIds(event.getId(), deletedTicketIds);
+            event.getTicketIds().removeAll(deletedTicketIds);
         }
-        event.setTicketIds(ticketIds);
-        eventRepository.updateEvent(event);
     }
 
     public void updateEvent(ObjectId id, Event updatedEvent) {
@@ -184,22 +209,18 @@ public class EventService {
 
 
         // Track changes to the max participants field
+        int previousMaxParticipants = existingEvent.getMaxParticipants();
         boolean maxParticipantsChanged = updatedEvent.getMaxParticipants() > 0
-                && updatedEvent.getMaxParticipants() != existingEvent.getMaxParticipants();
+                && updatedEvent.getMaxParticipants() != previousMaxParticipants;
 
         // Update editable fields
         updateEditableFields(existingEvent, updatedEvent);
 
-        // If maxParticipants has changed, delete and regenerate tickets
-        if (maxParticipantsChanged) {
-            // Clear the ticketIds list
-            existingEvent.getTicketIds().clear();
-
-            // Delete all existing tickets
-            deleteUnassignedTickets(existingEvent);
-
-            // Regenerate tickets with the new maxParticipants value
-            createUnassignedTickets(existingEvent);
+        // The new capacity must still fit the registered participants
+        if (maxParticipantsChanged && existingEvent.getMaxParticipants() < existingEvent.getRegisteredParticipants()) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Max participants cannot be lower than the registered participants."))
+                    .build());
         }
 
         // Process pending speaker requests if any
@@ -227,21 +248,22 @@ public class EventService {
             existingEvent.setPendingSpeakerRequests(newPendingRequests);
         }
 
-        // Persist the updated event
-        eventRepository.updateEvent(existingEvent);
-        // Update the event inside the host's programmed events, unless the host is "Admin"
-        if (!"Admin".equals(existingEvent.getHost())) {
-            // Query the host by its name instead of treating it as an ObjectId
-            Host host = hostRepository.find("name", existingEvent.getHost()).firstResult();
-            if (host != null) {
-                for (int i = 0; i < host.getProgrammedEvents().size(); i++) {
-                    if (host.getProgrammedEvents().get(i).getId().equals(existingEvent.getId())) {
-                        host.getProgrammedEvents().set(i, existingEvent);
-                        break;
-                    }
-                }
-                hostRepository.update(host);
-            }
+        // If maxParticipants has changed on an event with pre-created tickets, add or remove only the difference.
+        // Done after every check that can reject the update, so tickets never change for an event that is not saved.
+        if (maxParticipantsChanged && usesPreMintedTickets(existingEvent)) {
+            resizePreMintedTickets(existingEvent, previousMaxParticipants);
+        }
+
+        // Persist the edited fields, the host only references the event by id
+        persistDetails(existingEvent);
+    }
+
+    // Seats can be claimed between the read and the write, the capacity check is repeated by the update itself
+    private void persistDetails(Event event) {
+        if (!eventRepository.updateDetails(event)) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Max participants cannot be lower than the registered participants."))
+                    .build());
         }
     }
 
@@ -365,118 +387,66 @@ public class EventService {
         System.out.println("Speaker request created for: " + fullSpeaker.getEmail());
     }
 
-    public void onStartup(@Observes StartupEvent event) {
-        System.out.println("Application started, running archivePastEvents now...");
-        archivePastEvents();
-    }
-
-    @Transactional
+    // Not transactional: every chunk commits on its own, a failed run is picked up again by the next one
+    @ClusteredJob(value = "archivePastEvents", lease = "PT2M")
     @Scheduled(cron = "0 0 0 * * ?")
     public void archivePastEvents() {
-        System.out.println("Scheduled task 'archivePastEvents' started at: " + LocalDateTime.now());
-
-        LocalDateTime now = LocalDateTime.now();
-
-        // Find all CONFIRMED events where the end date has already passed
-        List<Event> eventsToArchive = eventRepository.find(
-                "status = ?1 and endDate < ?2", EventStatus.CONFIRMED, now
-        ).list();
-
-        if (!eventsToArchive.isEmpty()) {
-            for (Event event : eventsToArchive) {
-                // Archive the event
-                event.setStatus(EventStatus.ARCHIVED);
-                eventRepository.updateEvent(event);
-                System.out.println("Archived event: " + event.getTitle());
-
-                // Remove all related SpeakerInbox entries
-                removeRelatedSpeakerInboxes(event.getId());
-
-                // Find all tickets for this event that have a userId assigned and are in PENDING status
-                List<Ticket> ticketsToExpire = ticketRepository.find(
-                        "eventId = ?1 and userId != null and status = ?2", event.getId(), TicketStatus.PENDING
-                ).list();
-
-                if (!ticketsToExpire.isEmpty()) {
-                    for (Ticket ticket : ticketsToExpire) {
-                        ticket.setStatus(TicketStatus.EXPIRED);
-                        ticketRepository.updateTicket(ticket);
-                        System.out.println("Expired ticket with ID: " + ticket.getId() + " for event: " + event.getTitle());
-                    }
-                } else {
-                    System.out.println("No pending tickets to expire for event: " + event.getTitle());
-                }
-
-                deleteUnassignedTickets(event);
-
-                // Move the event from programmedEvents to pastEvents inside the host
-                Host host = hostRepository.find("name", event.getHost()).firstResult();
-                if (host != null) {
-                    host.getProgrammedEvents().removeIf(programmedEvent -> programmedEvent.getId().equals(event.getId()));
-                    host.getPastEvents().add(event);
-                    hostRepository.update(host);
+        LOG.infof("Scheduled task 'archivePastEvents' started at: %s", LocalDateTime.now());
+        long start = System.currentTimeMillis();
+
+        // Stream the expired CONFIRMED events and archive them chunk by chunk, so memory stays bounded
+        int archived = 0;
+        int chunks = 0;
+        try (MongoCursor<EventSummary> cursor = eventRepository.streamExpiredConfirmed(LocalDateTime.now(), archiveBatchSize)) {
+            List<EventSummary> chunk = new ArrayList<>(archiveBatchSize);
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == archiveBatchSize || !cursor.hasNext()) {
+                    // Stop if another node took over the job, it archives the remaining events itself
+                    jobLeaseService.checkLease();
+                    archived += archiveChunk(chunk, ++chunks);
+                    chunk.clear();
                 }
             }
-        } else {
-            System.out.println("No events to archive at this time.");
         }
 
-        System.out.println("Scheduled task 'archivePastEvents' completed at: " + LocalDateTime.now());
-    }
-
-    private void deleteUnassignedTickets(Event event) {
-        List<Ticket> unassignedTickets = ticketRepository.find(
-                "{ 'eventId' : ?1, 'userId' : null }", event.getId()
-        ).list();
-
-        System.out.println("Found " + unassignedTickets.size() + " unassigned ticket(s) for event '" + event.getTitle() + "'");
-
-        if (!unassignedTickets.isEmpty()) {
-            List<ObjectId> deletedTicketIds = new ArrayList<>();
-            for (Ticket ticket : unassignedTickets) {
-                System.out.println("Attempting to delete ticket with ID: " + ticket.getId());
-                // Delete the ticket using deleteEmptyTicket
-                boolean deleted = ticketRepository.deleteEmptyTicket(ticket);
-                if (deleted) {
-                    System.out.println("Successfully deleted unassigned ticket with ID: " + ticket.getId());
-                    deletedTicketIds.add(ticket.getId());
-                } else {
-                    System.err.println("Failed to delete unassigned ticket with ID: " + ticket.getId());
-                }
-            }
-
-            // Remove the deleted ticket IDs from the event's ticketIds list
-            if (event.getTicketIds() != null && !event.getTicketIds().isEmpty()) {
-                System.out.println("Removing deleted ticket IDs from event's ticketIds list.");
-                boolean removed = event.getTicketIds().removeAll(deletedTicketIds);
-                if (removed) {
-                    eventRepository.updateEvent(event);
-                    System.out.println("Updated event '" + event.getTitle() + "' by removing " + deletedTicketIds.size() + " unassigned ticket(s).");
-                } else {
-                    System.err.println("No matching ticket IDs found in event's ticketIds list for event: " + event.getTitle());
-                }
-            }
-        } else {
-            System.out.println("No unassigned tickets to delete for event: " + event.getTitle());
+        if (archived == 0) {
+            LOG.info("No events to archive at this time.");
         }
+        LOG.infof("Scheduled task 'archivePastEvents' completed at: %s, archived %d event(s) in %d chunk(s) (%d ms)",
+                LocalDateTime.now(), archived, chunks, System.currentTimeMillis() - start);
     }
 
-
-    private void removeRelatedSpeakerInboxes(ObjectId eventId) {
-        // Fetch all related SpeakerInbox entries for the event
-        List<SpeakerInbox> relatedInboxes = speakerInboxRepository.getRequestsByEventId(eventId);
-
-        if (!relatedInboxes.isEmpty()) {
-            for (SpeakerInbox inbox : relatedInboxes) {
-                speakerInboxRepository.deleteRequest(inbox.getId());
-                System.out.println("Deleted SpeakerInbox entry for speaker: " + inbox.getSpeakerEmail());
-            }
-        } else {
-            System.out.println("No SpeakerInbox entries found for event ID: " + eventId);
-        }
+    // Archives one chunk of events with a fixed number of bulk writes, whatever the chunk size
+    private int archiveChunk(List<EventSummary> chunk, int chunkNumber) {
+        long start = System.currentTimeMillis();
+        List<ObjectId> eventIds = chunk.stream().map(EventSummary::getId).toList();
+
+        // Delete the unassigned tickets and drop them from the events while archiving
+        List<ObjectId> deletedTicketIds = ticketRepository.deleteUnassignedByIds(ticketRepository.findUnassignedTicketIds(eventIds));
+        long deletedTickets = deletedTicketIds.size();
+        long archivedEvents = eventRepository.archiveAll(eventIds, deletedTicketIds);
+
+        // Remove all related SpeakerInbox entries
+        long deletedInboxes = speakerInboxRepository.deleteByEventIds(eventIds);
+
+        // Expire the assigned tickets still in PENDING status
+        long expiredTickets = ticketRepository.expireAssignedTickets(eventIds);
+
+        // Move the events from programmedEvents to pastEvents inside their hosts
+        Map<String, List<ObjectId>> eventIdsByHost = chunk.stream()
+                .filter(event -> event.getHost() != null && !"Admin".equals(event.getHost()))
+                .collect(Collectors.groupingBy(EventSummary::getHost,
+                        Collectors.mapping(EventSummary::getId, Collectors.toList())));
+        hostRepository.moveAllToPastEvents(eventIdsByHost);
+
+        LOG.debugf("Archive chunk %d: %d event(s) archived, %d ticket(s) expired, %d unassigned ticket(s) and "
+                        + "%d speaker request(s) deleted (%d ms)", chunkNumber, archivedEvents, expiredTickets, deletedTickets,
+                deletedInboxes, System.currentTimeMillis() - start);
+        return (int) archivedEvents;
     }
 
-    public void checkAndBookEvent(ObjectId id, User user) {
+    public Event checkAndBookEvent(ObjectId id, User user) {
         // Check if the event is provided
         if (id == null) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
@@ -521,69 +491,76 @@ public class EventService {
                     .build());
         }
 
-        // Check if the event is full. If the event is full, the user will be put on a waiting list.
-        if (existingEvent.getMaxParticipants() > 0 && existingEvent.getRegisteredParticipants() >= existingEvent.getMaxParticipants()) {
-            // Check if the waiting list already exists
-            waitingListService.checkAndCreateWaitingList(existingEvent.getId());
+        // Unless the event still has pre-created tickets, a brand-new ticket is minted and its id is reserved together with the seat
+        boolean preMinted = usesPreMintedTickets(existingEvent);
+        ObjectId newTicketId = preMinted ? null : new ObjectId();
 
-            // Get the waiting list
-            WaitingList waitingList = waitingListService.getWaitingListByEventId(existingEvent.getId());
+        // Claim a seat with a single guarded increment, so concurrent bookings cannot overbook the event
+        Event bookedEvent = eventRepository.claimSeat(existingEvent.getId(), newTicketId);
 
-            // Check if the user is already on the waiting list
-            if (waitingList.getWaitingUsers().contains(user.getEmail())) {
-                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
-                        .entity(Map.of("message", "User is already on the waiting list."))
-                        .build());
-            }
-
-            // Add the user to the waiting list
-            waitingListService.addUserToWaitingList(waitingList, user);
-
-            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
-                    .entity(Map.of("message", "Event is full. User added to waiting list."))
-                    .build());
+        // If no seat could be claimed the event is full and the user is put on a waiting list
+        if (bookedEvent == null) {
+            throw addToWaitingList(existingEvent, user);
         }
-        // If the event has a limited number of participants, assign an unassigned ticket
-        Ticket assignedTicket;
 
-        if (existingEvent.getMaxParticipants() > 0) {
-            // Find an existing unassigned ticket for the event
-            assignedTicket = ticketRepository.find("eventId = ?1 and status = ?2", existingEvent.getId(), TicketStatus.PENDING)
-                    .firstResult();
+        Ticket assignedTicket;
+        if (preMinted) {
+            // Atomically assign one of the unassigned tickets to the user
+            assignedTicket = ticketRepository.claimUnassignedTicket(bookedEvent.getId(), user.getId());
 
             if (assignedTicket == null) {
+                eventRepository.releaseSeat(bookedEvent.getId(), null);
                 throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
                         .entity(Map.of("message", "No available tickets for this event."))
                         .build());
             }
-
-            // Assign the ticket to the user
-            assignedTicket.setUserId(user.getId());
-            assignedTicket.setStatus(TicketStatus.PENDING);
-            ticketRepository.updateTicket(assignedTicket);
         } else {
-            // If no max participants, create a new ticket for the user
-            assignedTicket = new Ticket(user.getId(), existingEvent.getId(), TicketStatus.PENDING);
+            // Mint the ticket for the user
+            assignedTicket = new Ticket(user.getId(), bookedEvent.getId(), TicketStatus.PENDING);
+            assignedTicket.setId(newTicketId);
             ticketRepository.addTicket(assignedTicket);
         }
 
-        // 3. Add the ticket's ObjectId to the event's ticketIds list
-        if (!existingEvent.getTicketIds().contains(assignedTicket.getId())) {
-            existingEvent.getTicketIds().add(assignedTicket.getId());
+        // Add the event and the ticket to the user's bookings, guarded against a concurrent booking of the same event
+        if (!userService.addBooking(user, bookedEvent, assignedTicket)) {
+            if (preMinted) {
+                ticketRepository.releaseTicket(assignedTicket);
+            } else {
+                ticketRepository.deleteTicket(assignedTicket);
+            }
+            eventRepository.releaseSeat(bookedEvent.getId(), newTicketId);
+
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "User has already booked this event."))
+                    .build());
         }
 
-        // 4. Add the ticket to the user's booked tickets list
-        user.getUserDetails().getBookedTickets().add(assignedTicket);
+        user.getUserDetails().getBookedTickets().add(TicketRef.of(assignedTicket));
+        user.getUserDetails().getBookedEvents().add(EventRef.of(bookedEvent));
+
+        return bookedEvent;
+    }
+
+    private WebApplicationException addToWaitingList(Event existingEvent, User user) {
+        // Check if the waiting list already exists
+        waitingListService.checkAndCreateWaitingList(existingEvent.getId());
+
+        // Get the waiting list
+        WaitingList waitingList = waitingListService.getWaitingListByEventId(existingEvent.getId());
 
-        // 5. Update event's user's booked events
-        user.getUserDetails().getBookedEvents().add(existingEvent);
+        // Check if the user is already on the waiting list
+        if (waitingList.getWaitingUsers().contains(user.getEmail())) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "User is already on the waiting list."))
+                    .build());
+        }
 
-        // 6. Update registered partecipants by giving a +1
-        existingEvent.setRegisteredParticipants(existingEvent.getRegisteredParticipants() + 1);
+        // Add the user to the waiting list
+        waitingListService.addUserToWaitingList(waitingList, user);
 
-        // Persist the updated event and user
-        eventRepository.updateEvent(existingEvent);
-        userService.updateUser(user);
+        return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("message", "Event is full. User added to waiting list."))
+                .build());
     }
 
     public void checkAndRevokeEvent(ObjectId eventId, User user) {
@@ -636,18 +613,12 @@ public class EventService {
                     .build());
         }
 
-        // Nullify the user ID to revoke the ticket's assignment
-        ticketRepository.nullifyUserId(ticketToUpdate);
-        Ticket existingTicket = ticketRepository.findByIdOptional(ticketToUpdate.getId())
-                .orElseThrow(() -> new WebApplicationException(Response.status(Response.Status.NOT_FOUND)
-                        .entity(Map.of("message", "Ticket not found."))
-                        .build()));
-
-        // Refresh the ticket code
-        ticketRepository.refreshTicketCode(existingTicket);
-
-        // Remove the ticket ID from the event's ticketIds list
-        existingEvent.getTicketIds().remove(ticketToUpdate.getId());
+        // Only the request that actually pulls the booking frees the seat, a concurrent revoke of the same booking stops here
+        if (!userService.removeBooking(user, existingEvent.getId(), ticketToUpdate.getId())) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "User has not booked this event."))
+                    .build());
+        }
 
         // Remove the ticket from the user's booked tickets list
         user.getUserDetails().getBookedTickets().removeIf(ticket ->
@@ -657,55 +628,115 @@ public class EventService {
         user.getUserDetails().getBookedEvents().removeIf(bookedEvent ->
                 bookedEvent.getId().equals(existingEvent.getId()));
 
-        // Remove user from the event's registered participants
-        existingEvent.setRegisteredParticipants(existingEvent.getRegisteredParticipants() - 1);
-
-        // Check if the event is full. If the event is full, check if it has a waiting list and add the first user to the event
-        if (existingEvent.getMaxParticipants() > 0 && existingEvent.getRegisteredParticipants() < existingEvent.getMaxParticipants()) {
-            // Check if the waiting list already exists
-            WaitingList waitingList = waitingListService.getWaitingListByEventId(existingEvent.getId());
+        // If the event is limited and has a waiting list, the seat and the ticket go to the first waiting user
+        WaitingList waitingList = existingEvent.getMaxParticipants() > 0
+                ? waitingListService.getWaitingListByEventId(existingEvent.getId())
+                : null;
 
-            // Check if the waiting list is not empty
-            if (waitingList != null && !waitingList.getWaitingUsers().isEmpty()) {
-                // Get the first user from the waiting list
-                User firstUser = userService.getUserByEmail(waitingList.getWaitingUsers().get(0));
-
-                // Remove the user from the waiting list
-                waitingList.getWaitingUsers().removeIf(email ->
-                        email.equals(firstUser.getEmail()));
+        if (waitingList != null) {
+            // Waiting users who already hold a booking of the event are skipped, the next one gets the seat
+            while (!waitingList.getWaitingUsers().isEmpty()) {
+                User waitingUser = userService.getUserByEmail(waitingList.getWaitingUsers().remove(0));
+                if (waitingUser == null || !userService.addBooking(waitingUser, existingEvent, ticketToUpdate)) {
+                    continue;
+                }
 
-                // Delete the waiting list if it's empty
+                // Delete the waiting list if it's empty, otherwise persist it
                 if (waitingList.getWaitingUsers().isEmpty()) {
                     waitingListService.deleteWaitingList(waitingList);
+                } else {
+                    waitingListService.updateWaitingList(waitingList);
                 }
 
-                // Add the user to the event
-                existingEvent.setRegisteredParticipants(existingEvent.getRegisteredParticipants() + 1);
-                firstUser.getUserDetails().getBookedEvents().add(existingEvent);
-                firstUser.getUserDetails().getBookedTickets().add(existingTicket);
+                // Hand the ticket over to the user, the registered participants count stays the same
+                ticketRepository.transferTicket(ticketToUpdate, waitingUser.getId());
 
-                // Update the ticket with the user ID
-                existingTicket.setUserId(firstUser.getId());
-                ticketRepository.updateTicket(existingTicket);
+                // Email the user
+                mailService.sendBookingConfirmationMailToWaitingUser(waitingUser.getEmail(), existingEvent);
+                return;
+            }
 
-                // Update the event's ticketIds list
-                existingEvent.getTicketIds().add(existingTicket.getId());
+            // Nobody on the waiting list could take the seat
+            waitingListService.deleteWaitingList(waitingList);
+        }
 
-                // Persist the updated waiting list
-                waitingListService.updateWaitingList(waitingList);
+        boolean preMinted = usesPreMintedTickets(existingEvent);
+        if (preMinted) {
+            // Nullify the user ID and refresh the code so the pre-created ticket can be booked again;
+            // if the user no longer holds the ticket, the seat is not theirs to free
+            if (!ticketRepository.unassignTicket(ticketToUpdate, user.getId())) {
+                return;
+            }
+        } else {
+            // On-demand tickets are simply dropped
+            ticketRepository.deleteTicket(ticketToUpdate);
+        }
 
-                // Persist the updated event and user
-                eventRepository.updateEvent(existingEvent);
-                userService.updateUser(firstUser);
+        // Free the seat, pre-created tickets stay in the event's ticketIds list
+        eventRepository.releaseSeat(existingEvent.getId(), preMinted ? null : ticketToUpdate.getId());
+    }
 
-                // Email the user
-                mailService.sendBookingConfirmationMailToWaitingUser(firstUser.getEmail(), existingEvent);
-            }
+    // Events created before on-demand tickets keep one pre-created ticket per seat until they are migrated
+    private static boolean usesPreMintedTickets(Event event) {
+        return event.getMaxParticipants() > 0 && event.getTicketAllocation() != TicketAllocation.ON_DEMAND;
+    }
+
+    // Migrates an event with pre-created tickets to on-demand tickets by dropping its unassigned tickets
+    public void migrateToOnDemandTickets(ObjectId eventId) {
+        Event event = getExistingEvent(eventId);
+        if (!usesPreMintedTickets(event)) {
+            return;
         }
 
-        // Persist the updated event and user
-        eventRepository.updateEvent(existingEvent);
-        userService.updateUser(user);
+        // The event can still be booked: tickets claimed after the read are kept and stay in ticketIds
+        List<ObjectId> deletedTicketIds = ticketRepository.deleteUnassignedByIds(ticketRepository.findUnassignedTicketIds(event.getId()));
+        eventRepository.switchToOnDemandTickets(event.getId(), deletedTicketIds);
+        LOG.infof("Migrated event '%s' to on-demand tickets, removed %d unassigned ticket(s).",
+                event.getTitle(), deletedTicketIds.size());
+    }
+
+    // Migrates every active event that still has pre-created tickets, returns the number of migrated events
+    public int migrateAllToOnDemandTickets() {
+        List<ObjectId> eventIds = eventRepository.findPreMintedEventIds();
+        for (ObjectId eventId : eventIds) {
+            migrateToOnDemandTickets(eventId);
+        }
+        return eventIds.size();
+    }
+
+    // Loads the user's booked events with one query, in booking order
+    public List<Event> getBookedEvents(User user) {
+        return hydrateEvents(user.getUserDetails().getBookedEvents());
+    }
+
+    public List<Event> getArchivedEvents(User user) {
+        return hydrateEvents(user.getUserDetails().getArchivedEvents());
+    }
+
+    // Loads the user's booked tickets with one query, in booking order
+    public List<Ticket> getBookedTickets(User user) {
+        List<TicketRef> refs = user.getUserDetails().getBookedTickets();
+        Map<ObjectId, Ticket> tickets = ticketRepository.findByIds(refs.stream().map(TicketRef::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Ticket::getId, ticket -> ticket));
+
+        // References to tickets deleted in the meantime are skipped
+        return refs.stream()
+                .map(ref -> tickets.get(ref.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<Event> hydrateEvents(List<EventRef> refs) {
+        Map<ObjectId, Event> events = eventRepository.findByIds(refs.stream().map(EventRef::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Event::getId, event -> event));
+
+        // References to events deleted in the meantime are skipped
+        return refs.stream()
+                .map(ref -> events.get(ref.getId()))
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     public Event getEventById(ObjectId eventId) {
@@ -748,39 +779,86 @@ public class EventService {
 //        System.out.println("Scheduled task 'updateRegisteredParticipants' completed.");
 //    }
 
-    public List<Event> getEventsByTopic(List<String> topics) {
-        return eventRepository.getEventsByTopic(topics);
+    public List<Event> getAllEvents() {
+        return eventRepository.getAllEvents();
     }
 
-    public List<Event> getEventsByDate(String date) {
-        LocalDateTime localDate = LocalDateTime.parse(date);
-        return eventRepository.getEventsByDate(localDate);
+    // Compiles the search criteria into a single query, dates accept either "yyyy-MM-dd" or a full date-time
+    public EventSearch buildEventSearch(List<String> topics, String date, String from, String to, List<String> speakers, EventStatus status, String host) {
+        LocalDateTime rangeStart = parseSearchDate(from);
+        LocalDateTime rangeEnd = parseSearchDate(to);
+        if (date != null && !date.isBlank()) {
+            if (rangeStart != null || rangeEnd != null) {
+                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("message", "Use either date or from/to, not both."))
+                        .build());
+            }
+            // A single date matches every event starting on that day
+            rangeStart = parseSearchDate(date).toLocalDate().atStartOfDay();
+            rangeEnd = rangeStart.plusDays(1);
+        }
+
+        try {
+            return new EventSearch()
+                    .topics(topics)
+                    .speakers(speakers)
+                    .startingBetween(rangeStart, rangeEnd)
+                    .status(status)
+                    .host(host);
+        } catch (InvalidInputException e) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", e.getMessage()))
+                    .build());
+        }
     }
 
-    public List<Event> getEventsBySpeaker(List<String> speakersNames) {
-        List<Event> events = new ArrayList<>();
-        for (String s : speakersNames) {
-            List<User> usersByFullName = userService.findUserByFullName(s);
-            if (usersByFullName != null) {
-                for (User u : usersByFullName) {
-                    if (Role.SPEAKER.equals(u.getRole())) {
-                        List<Event> eventsBySpeaker = eventRepository.getEventsBySpeakerMail(u.getEmail());
-                        if (eventsBySpeaker != null) {
-                            events.addAll(eventsBySpeaker);
-                        }
-                    }
-                }
+    private LocalDateTime parseSearchDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Invalid date format: " + value))
+                    .build());
+        }
+    }
+
+    // Returns a page of the event summaries matching the search after the given cursor, read lazily from the database
+    public Iterable<EventSummary> getEventSummaries(EventSearch search, String after, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Limit must be between 1 and " + MAX_PAGE_SIZE + "."))
+                    .build());
+        }
+
+        LocalDateTime afterStartDate = null;
+        ObjectId afterId = null;
+        if (after != null && !after.isBlank()) {
+            int separator = after.lastIndexOf('_');
+            try {
+                // An empty date part marks an event without a start date
+                afterStartDate = separator == 0 ? null : LocalDateTime.parse(after.substring(0, separator));
+                afterId = new ObjectId(after.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("message", "Invalid page cursor."))
+                        .build());
             }
         }
-        return events;
+
+        return eventRepository.findSummaries(search, afterStartDate, afterId, limit);
     }
 
-    public List<Event> getAllEvents() {
-        return eventRepository.getAllEvents();
+    // Cursor pointing right after the given summary, to be passed back as "after"
+    public String getPageCursor(EventSummary lastEvent) {
+        String startDate = lastEvent.getStartDate() == null ? "" : lastEvent.getStartDate().toString();
+        return startDate + "_" + lastEvent.getId().toHexString();
     }
 
     public void updateEventStatus(Event event) {
-        eventRepository.updateEvent(event);
+        eventRepository.updateStatus(event.getId(), event.getStatus());
     }
 
     public void deleteEvent(ObjectId id, Host host, boolean isAdmin) {
@@ -796,50 +874,23 @@ public class EventService {
                     .entity(Map.of("message", "Host is not authorized to delete the event."))
                     .build());
         }
-        // Remove from programmedEvents inside host (if not Admin)
+        // Remove the event from the host's programmed and past events (if not Admin)
         if (!"Admin".equals(event.getHost())) {
-            // Remove the event from host's programmed events
-            host.getProgrammedEvents().removeIf(programmedEvent -> programmedEvent.getId().equals(event.getId()));
-            hostRepository.update(host);
-        }
-
-        // Remove the event from host both programmed (if CONFIRMED) and past (if ARCHIVED) events
-        if (event.getStatus() == EventStatus.CONFIRMED) {
-            host.getProgrammedEvents().removeIf(programmedEvent ->
-                    programmedEvent.getId().equals(event.getId()));
-        } else if (event.getStatus() == EventStatus.ARCHIVED) {
-            host.getPastEvents().removeIf(pastEvent ->
-                    pastEvent.getId().equals(event.getId()));
-        } else {
-            System.out.println("Event status is not CONFIRMED or ARCHIVED.");
+            hostRepository.removeEvent(event.getHost(), event.getId());
         }
 
-        // Remove the event from user both booked events (if CONFIRMED) and past events (if ARCHIVED)
+        // Find the affected users through the event's tickets and the bookedEvents/archivedEvents indexes
+        Set<ObjectId> ticketHolderIds = ticketRepository.findHolderIds(event.getId(), event.getTicketIds());
         List<String> userEmailsToNotify = new ArrayList<>();
-        if (event.getStatus() == EventStatus.CONFIRMED) {
-            for (User user : userService.getAllUsers()) {
-                user.getUserDetails().getBookedEvents().removeIf(bookedEvent ->
-                        bookedEvent.getId().equals(event.getId()));
-                userEmailsToNotify.add(user.getEmail());
-                userService.updateUser(user);
-            }
-        } else if (event.getStatus() == EventStatus.ARCHIVED) {
-            for (User user : userService.getAllUsers()) {
-                user.getUserDetails().getArchivedEvents().removeIf(archivedEvent ->
-                        archivedEvent.getId().equals(event.getId()));
-                userEmailsToNotify.add(user.getEmail());
-                userService.updateUser(user);
-            }
+        if (event.getStatus() == EventStatus.CONFIRMED || event.getStatus() == EventStatus.ARCHIVED) {
+            userEmailsToNotify = userService.getEmailsAffectedByEvent(event.getId(), ticketHolderIds);
         } else {
             System.out.println("Event status is not CONFIRMED or ARCHIVED.");
         }
 
-        // Remove the ticket from user's booked tickets
-        for (User user : userService.getAllUsers()) {
-            user.getUserDetails().getBookedTickets().removeIf(ticket ->
-                    ticket.getEventId().equals(event.getId()));
-            userService.updateUser(user);
-        }
+        // Remove the event and its tickets from the affected users' booked, archived and ticket lists
+        long updatedUsers = userService.removeEventFromUsers(event.getId(), ticketHolderIds);
+        LOG.debugf("Removed event '%s' from %d user(s).", event.getTitle(), updatedUsers);
 
         // Remove waiting list if it exists
         WaitingList waitingList = waitingListService.getWaitingListByEventId(event.getId());
@@ -850,17 +901,8 @@ public class EventService {
         }
 
         // Remove event tickets from the database
-        if (event.getTicketIds() != null) {
-            for (ObjectId ticketIds : event.getTicketIds()) {
-                Ticket ticket = ticketRepository.findByIdOptional(ticketIds)
-                        .orElseThrow(() -> new WebApplicationException(Response.status(Response.Status.NOT_FOUND)
-                                .entity(Map.of("message", "Ticket not found."))
-                                .build()));
-                ticketRepository.delete(ticket);
-            }
-        } else {
-            System.out.println("No tickets found for event: " + event.getTitle());
-        }
+        long deletedTickets = ticketRepository.deleteByEvent(event.getId(), event.getTicketIds());
+        LOG.debugf("Deleted %d ticket(s) for event: %s", deletedTickets, event.getTitle());
 
         // Remove speaker both inbox requests for the event and from the event
         List<String> speakerEmailsToNotify = new ArrayList<>();
@@ -871,26 +913,14 @@ public class EventService {
             for (SpeakerInbox inbox : relatedInboxes) {
                 speakerEmailsToNotify.add(inbox.getSpeakerEmail());
             }
+            speakerInboxRepository.deleteByEventId(event.getId());
         }
 
-        removeRelatedSpeakerInboxes(event.getId());
-
         // Remove the event from the database
         eventRepository.deleteEvent(event);
 
-        // Notify users and speakers who booked the event that it has been deleted
-        for (String userEmail : userEmailsToNotify) {
-            mailService.sendEventDeletedMailToUser(userEmail, event);
-        }
-
-        for (String waitingUserEmail : waitingUserEmailsToNotify) {
-            mailService.sendEventDeletedMailToWaitingUser(waitingUserEmail, event);
-        }
-
-        for (String speakerEmail : speakerEmailsToNotify) {
-            mailService.sendEventDeletedMailToSpeaker(speakerEmail, event);
-        }
-
+        // Notify users and speakers who booked the event that it has been deleted; mails are queued in BCC batches
+        mailService.sendEventDeletedMails(event, userEmailsToNotify, waitingUserEmailsToNotify, speakerEmailsToNotify);
     }
 
     public Event getEventByObjectId(ObjectId id) {
@@ -919,13 +949,24 @@ public class EventService {
         if (Objects.equals(existingEvent.getHost(), "Admin")) {
             updateEvent(id, updatedEvent);
             return;
-        } else {
-            // Update editable fields
-            updateEditableFields(existingEvent, updatedEvent);
         }
 
-        // Persist the updated event
-        eventRepository.updateEvent(existingEvent);
+        // Track changes to the max participants field
+        boolean maxParticipantsChanged = updatedEvent.getMaxParticipants() > 0
+                && updatedEvent.getMaxParticipants() != existingEvent.getMaxParticipants();
+
+        // Update editable fields
+        updateEditableFields(existingEvent, updatedEvent);
+
+        // The new capacity must still fit the registered participants
+        if (maxParticipantsChanged && existingEvent.getMaxParticipants() < existingEvent.getRegisteredParticipants()) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "Max participants cannot be lower than the registered participants."))
+                    .build());
+        }
+
+        // Persist only the edited fields, seats claimed in the meantime are kept
+        persistDetails(existingEvent);
     }
 
     public List<Event> getEventsByHostName(String hostName) {
@@ -953,6 +994,7 @@ public class EventService {
         newEvent.setSpeakers(new ArrayList<>());
         newEvent.setHost(hostName);
         newEvent.setTicketIds(new ArrayList<>());
+        newEvent.setTicketAllocation(TicketAllocation.ON_DEMAND);
         newEvent.setPendingSpeakerRequests(
                 event.getPendingSpeakerRequests() != null ?
                         new ArrayList<>(event.getPendingSpeakerRequests()) : new ArrayList<>()
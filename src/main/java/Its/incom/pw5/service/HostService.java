@@ -9,8 +9,10 @@ import Its.incom.pw5.persistence.model.enums.Role;
 import Its.incom.pw5.persistence.repository.HostRepository;
 import Its.incom.pw5.rest.model.PasswordEditRequest;
 import Its.incom.pw5.service.exception.*;
+import io.quarkus.runtime.StartupEvent;
 import io.quarkus.security.UnauthorizedException;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.persistence.PersistenceException;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
@@ -31,12 +33,22 @@ public class HostService {
     private final UserService userService;
     private final HashCalculator hashCalculator;
     private final EventService eventService;
+    private final SessionCache sessionCache;
+    private final SessionTokenService sessionTokenService;
 
-    public HostService(HostRepository hostRepository, UserService userService, HashCalculator hashCalculator, EventService eventService) {
+    public HostService(HostRepository hostRepository, UserService userService, HashCalculator hashCalculator, EventService eventService, SessionCache sessionCache, SessionTokenService sessionTokenService) {
         this.hostRepository = hostRepository;
         this.userService = userService;
         this.hashCalculator = hashCalculator;
         this.eventService = eventService;
+        this.sessionCache = sessionCache;
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    // Status or existence changed: cached principals and issued tokens are no longer trustworthy
+    private void invalidateSessions(String hostId) {
+        sessionCache.invalidatePrincipal(hostId);
+        sessionTokenService.revokeAllIssuedBefore(hostId);
     }
 
     private String validateAndSanitizeEmail(String email) {
@@ -167,6 +179,7 @@ public class HostService {
 
         // Finally, delete the host
         hostRepository.deleteHost(existingHost);
+        invalidateSessions(existingHost.getId().toHexString());
         System.out.println("Successfully deleted host and all related events created by host: " + existingHost.getName());
     }
 
@@ -225,11 +238,13 @@ public class HostService {
         String hashedPsw = hashCalculator.calculateHash(generatedPsw);
         newHost.setHashedPsw(hashedPsw);
         hostRepository.updateHost(newHost);
+        invalidateSessions(newHost.getId().toHexString());
     }
 
     public void rejectHostRequest(Host rejectedHost) {
         rejectedHost.setHostStatus(HostStatus.REJECTED);
         hostRepository.updateHost(rejectedHost);
+        invalidateSessions(rejectedHost.getId().toHexString());
     }
 
     public Host getHostByEmail(String hostEmail) {
@@ -244,8 +259,12 @@ public class HostService {
         return hostRepository.getById(new ObjectId(hostId));
     }
 
-    public void updateEvents(Host host) {
-        hostRepository.updateHost(host);
+    // Hosts saved before events were stored as ids are migrated once; already migrated hosts are not matched
+    void onStartup(@Observes StartupEvent event) {
+        long migratedHosts = hostRepository.migrateLegacyEvents();
+        if (migratedHosts > 0) {
+            System.out.println("Migrated programmed and past events of " + migratedHosts + " host(s) to event ids.");
+        }
     }
 
 
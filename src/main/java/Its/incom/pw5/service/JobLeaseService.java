@@ -0,0 +1,153 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.model.JobLease;
+import Its.incom.pw5.persistence.repository.JobLeaseRepository;
+import Its.incom.pw5.service.exception.LeaseLostException;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.jboss.logging.Logger;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Runs jobs under a cluster-wide lease (see @ClusteredJob). The lease is renewed in the background while the job runs;
+// long jobs call checkLease() between steps, so a node that lost its lease stops before its next step.
+// Writes inside a step are not fenced, see @ClusteredJob.
+@ApplicationScoped
+public class JobLeaseService {
+
+    private static final Logger LOG = Logger.getLogger(JobLeaseService.class);
+
+    private static class ActiveLease {
+        private final String jobName;
+        private final long fencingToken;
+        private volatile boolean lost;
+
+        ActiveLease(String jobName, long fencingToken) {
+            this.jobName = jobName;
+            this.fencingToken = fencingToken;
+        }
+    }
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final String owner;
+    private final ThreadLocal<ActiveLease> currentLease = new ThreadLocal<>();
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Inject
+    @RegistryType(type = MetricRegistry.Type.APPLICATION)
+    MetricRegistry metricRegistry;
+
+    public JobLeaseService(JobLeaseRepository jobLeaseRepository) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.owner = hostName() + "-" + UUID.randomUUID();
+    }
+
+    // Runs the job if this node gets the lease, otherwise skips it and returns null
+    public <T> T runExclusively(String jobName, Duration leaseDuration, Callable<T> job) throws Exception {
+        Tag jobTag = new Tag("job", jobName);
+
+        Timer.Context lockWait = metricRegistry.timer("clustered_job_lock_wait", jobTag).time();
+        JobLease lease;
+        try {
+            lease = jobLeaseRepository.tryAcquire(jobName, owner, leaseDuration);
+        } finally {
+            lockWait.stop();
+        }
+
+        if (lease == null) {
+            metricRegistry.counter("clustered_job_skipped_total", jobTag).inc();
+            LOG.infof("Skipping job %s, its lease is held by another node", jobName);
+            return null;
+        }
+
+        ActiveLease activeLease = new ActiveLease(jobName, lease.getFencingToken());
+        long renewEvery = Math.max(1, leaseDuration.toMillis() / 3);
+        ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(
+                () -> renew(activeLease, leaseDuration), renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+
+        ActiveLease outerLease = currentLease.get();
+        currentLease.set(activeLease);
+        try {
+            metricRegistry.counter("clustered_job_runs_total", jobTag).inc();
+            return job.call();
+        } catch (LeaseLostException e) {
+            // The node that took over the lease carries on with the job
+            LOG.warnf("Job %s stopped: %s", jobName, e.getMessage());
+            return null;
+        } finally {
+            renewal.cancel(false);
+            if (outerLease == null) {
+                currentLease.remove();
+            } else {
+                currentLease.set(outerLease);
+            }
+            if (!activeLease.lost) {
+                jobLeaseRepository.release(jobName, owner, activeLease.fencingToken);
+            }
+        }
+    }
+
+    // Fencing check for long jobs: throws if the current job's lease expired or was taken over by another node
+    public void checkLease() {
+        ActiveLease activeLease = currentLease.get();
+        if (activeLease == null) {
+            return;
+        }
+        if (!activeLease.lost && !jobLeaseRepository.isHeld(activeLease.jobName, owner, activeLease.fencingToken)) {
+            markLost(activeLease);
+        }
+        if (activeLease.lost) {
+            throw new LeaseLostException("Lease on job " + activeLease.jobName + " was lost (fencing token "
+                    + activeLease.fencingToken + ").");
+        }
+    }
+
+    private void renew(ActiveLease activeLease, Duration leaseDuration) {
+        if (activeLease.lost) {
+            return;
+        }
+        try {
+            if (!jobLeaseRepository.renew(activeLease.jobName, owner, activeLease.fencingToken, leaseDuration)) {
+                markLost(activeLease);
+            }
+        } catch (RuntimeException e) {
+            // A failed renewal is retried on the next tick, the lease is only lost once someone else takes it
+            LOG.warnf("Could not renew the lease on job %s: %s", activeLease.jobName, e.getMessage());
+        }
+    }
+
+    private void markLost(ActiveLease activeLease) {
+        activeLease.lost = true;
+        metricRegistry.counter("clustered_job_lease_lost_total", new Tag("job", activeLease.jobName)).inc();
+        LOG.warnf("Lost the lease on job %s (fencing token %d)", activeLease.jobName, activeLease.fencingToken);
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        renewer.shutdownNow();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.model.OutboxMail;
+import Its.incom.pw5.persistence.repository.OutboxMailRepository;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.reactive.ReactiveMailer;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+
+// Drains the mail outbox. At most pw5.mail.concurrency mails are in flight per node and at most
+// pw5.mail.rate-per-second are handed to the SMTP relay; failed sends are retried with exponential backoff
+// and dead-lettered after pw5.mail.max-attempts. Claims are atomic, so every node can run a dispatcher.
+@ApplicationScoped
+public class MailDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(MailDispatcher.class);
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final ReactiveMailer mailer;
+    private final Semaphore inFlight;
+    private final int ratePerSecond;
+    private final int maxAttempts;
+    private final Duration retryBaseDelay;
+    private final Duration retryMaxDelay;
+    private final Duration sendTimeout;
+    private final Duration lockMargin;
+
+    private long windowStart;
+    private int sentInWindow;
+
+    @Inject
+    @RegistryType(type = MetricRegistry.Type.APPLICATION)
+    MetricRegistry metricRegistry;
+
+    public MailDispatcher(OutboxMailRepository outboxMailRepository, ReactiveMailer mailer,
+                          @ConfigProperty(name = "pw5.mail.concurrency", defaultValue = "4") int concurrency,
+                          @ConfigProperty(name = "pw5.mail.rate-per-second", defaultValue = "5") int ratePerSecond,
+                          @ConfigProperty(name = "pw5.mail.max-attempts", defaultValue = "8") int maxAttempts,
+                          @ConfigProperty(name = "pw5.mail.retry-base-delay", defaultValue = "PT30S") Duration retryBaseDelay,
+                          @ConfigProperty(name = "pw5.mail.retry-max-delay", defaultValue = "PT1H") Duration retryMaxDelay,
+                          @ConfigProperty(name = "pw5.mail.send-timeout", defaultValue = "PT2M") Duration sendTimeout,
+                          @ConfigProperty(name = "pw5.mail.lock-margin", defaultValue = "PT5M") Duration lockMargin) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailer = mailer;
+        this.inFlight = new Semaphore(concurrency);
+        this.ratePerSecond = ratePerSecond;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelay = retryBaseDelay;
+        this.retryMaxDelay = retryMaxDelay;
+        this.sendTimeout = sendTimeout;
+        this.lockMargin = lockMargin;
+    }
+
+    @Scheduled(every = "${pw5.mail.poll-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void drain() {
+        while (inFlight.tryAcquire()) {
+            if (!acquireRate()) {
+                inFlight.release();
+                return;
+            }
+
+            OutboxMail outboxMail;
+            try {
+                // A sender that dies mid-send leaves the lock to expire, then the mail is sent again.
+                // The timeout does not cancel the SMTP send, so the lock outlives it by a margin.
+                outboxMail = outboxMailRepository.claimNext(LocalDateTime.now().plus(sendTimeout).plus(lockMargin));
+            } catch (RuntimeException e) {
+                inFlight.release();
+                LOG.warnf("Could not read the mail outbox: %s", e.getMessage());
+                return;
+            }
+            if (outboxMail == null) {
+                inFlight.release();
+                return;
+            }
+            send(outboxMail);
+        }
+    }
+
+    private void send(OutboxMail outboxMail) {
+        Mail mail = new Mail()
+                .setTo(outboxMail.getTo())
+                .setBcc(outboxMail.getBcc())
+                .setSubject(outboxMail.getSubject())
+                .setHtml(outboxMail.getHtml());
+
+        mailer.send(mail)
+                .ifNoItem().after(sendTimeout).fail()
+                // Outbox updates are blocking calls, keep them off the mailer's event loop
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .subscribe().with(
+                        success -> {
+                            inFlight.release();
+                            if (!outboxMailRepository.markSent(outboxMail)) {
+                                LOG.warnf("Mail %s was sent after its claim (attempt %d) had been taken over",
+                                        outboxMail.getId(), outboxMail.getAttempts());
+                            }
+                            metricRegistry.counter("mail_sent_total").inc();
+                        },
+                        failure -> {
+                            inFlight.release();
+                            handleFailure(outboxMail, failure);
+                        });
+    }
+
+    private void handleFailure(OutboxMail outboxMail, Throwable failure) {
+        String error = failure.getClass().getSimpleName() + ": " + failure.getMessage();
+        if (outboxMail.getAttempts() >= maxAttempts) {
+            if (!outboxMailRepository.markDead(outboxMail, error)) {
+                return;
+            }
+            metricRegistry.counter("mail_dead_lettered_total").inc();
+            LOG.errorf("Mail %s to %s dead-lettered after %d attempts: %s",
+                    outboxMail.getId(), outboxMail.getTo(), outboxMail.getAttempts(), error);
+            return;
+        }
+
+        // 30s, 1m, 2m, 4m, ... capped at the max delay
+        Duration delay = retryBaseDelay.multipliedBy(1L << Math.min(outboxMail.getAttempts() - 1, 20));
+        if (delay.compareTo(retryMaxDelay) > 0) {
+            delay = retryMaxDelay;
+        }
+        if (!outboxMailRepository.scheduleRetry(outboxMail, LocalDateTime.now().plus(delay), error)) {
+            // The claim expired and another attempt owns the mail now
+            return;
+        }
+        metricRegistry.counter("mail_retried_total").inc();
+        LOG.warnf("Mail %s failed (attempt %d), retrying in %s: %s",
+                outboxMail.getId(), outboxMail.getAttempts(), delay, error);
+    }
+
+    // Fixed one-second window: stops the drain once the relay's rate for the current second is used up
+    private synchronized boolean acquireRate() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= 1000) {
+            windowStart = now;
+            sentInWindow = 0;
+        }
+        if (sentInWindow >= ratePerSecond) {
+            return false;
+        }
+        sentInWindow++;
+        return true;
+    }
+}
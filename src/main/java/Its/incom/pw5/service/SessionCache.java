@@ -0,0 +1,108 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.model.Session;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// In-memory cookie -> (session, principal) cache, so authenticated requests skip the session and user reads.
+// Entries expire after the configured TTL or when the session itself expires, whichever comes first.
+// Invalidation is local; other nodes learn about it through the revocations checked in SessionService.
+@ApplicationScoped
+public class SessionCache {
+
+    public static class Entry {
+        private final Session session;
+        private final AuthPrincipal principal;
+        private final LocalDateTime expiresAt;
+        private final long issuedAt; // epoch millis, when the principal was read or the token issued
+
+        Entry(Session session, AuthPrincipal principal, LocalDateTime expiresAt, long issuedAt) {
+            this.session = session;
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+            this.issuedAt = issuedAt;
+        }
+
+        public Session getSession() {
+            return session;
+        }
+
+        public AuthPrincipal getPrincipal() {
+            return principal;
+        }
+
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private final Duration ttl;
+
+    public SessionCache(@ConfigProperty(name = "pw5.session-cache.ttl", defaultValue = "PT5M") Duration ttl,
+                        @ConfigProperty(name = "pw5.session-cache.max-entries", defaultValue = "10000") int maxEntries) {
+        this.ttl = ttl;
+        // Access-ordered, so a full cache drops its least recently used entry in constant time on each put
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SessionCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public Entry get(String cookieValue) {
+        if (cookieValue == null) {
+            return null;
+        }
+        Entry entry = entries.get(cookieValue);
+        if (entry != null && entry.isExpired(LocalDateTime.now())) {
+            entries.remove(cookieValue, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    // Caches and returns the entry; sessions about to expire are returned without being cached.
+    // loadedAt (epoch millis) is taken before the session and principal were read.
+    public Entry put(Session session, AuthPrincipal principal, long loadedAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        if (session.getExpiresIn() != null && session.getExpiresIn().isBefore(expiresAt)) {
+            expiresAt = session.getExpiresIn();
+        }
+
+        Entry entry = new Entry(session, principal, expiresAt, loadedAt);
+        if (expiresAt.isAfter(now)) {
+            entries.put(session.getCookieValue(), entry);
+        }
+        return entry;
+    }
+
+    public void invalidate(String cookieValue) {
+        if (cookieValue != null) {
+            entries.remove(cookieValue);
+        }
+    }
+
+    // Drops every cached session of a user or host, e.g. after a role or status change
+    public void invalidatePrincipal(String principalId) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.getPrincipal().getId().equals(principalId));
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -1,10 +1,15 @@
 package Its.incom.pw5.service;
 
+import Its.incom.pw5.interceptor.ClusteredJob;
 import Its.incom.pw5.interceptor.GlobalLog;
+import Its.incom.pw5.persistence.model.Host;
 import Its.incom.pw5.persistence.model.Session;
 import Its.incom.pw5.persistence.model.User;
+import Its.incom.pw5.persistence.repository.HostRepository;
 import Its.incom.pw5.persistence.repository.SessionRepository;
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.ObjectId;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -15,13 +20,28 @@ public class SessionService {
 
     private final SessionRepository sessionRepository;
     private final UserService userService;
+    private final HostRepository hostRepository;
+    private final SessionCache sessionCache;
+    private final SessionTokenService sessionTokenService;
 
-    public SessionService(SessionRepository sessionRepository, UserService userService) {
+    public SessionService(SessionRepository sessionRepository, UserService userService, HostRepository hostRepository, SessionCache sessionCache, SessionTokenService sessionTokenService) {
         this.sessionRepository = sessionRepository;
         this.userService = userService;
+        this.hostRepository = hostRepository;
+        this.sessionCache = sessionCache;
+        this.sessionTokenService = sessionTokenService;
     }
 
     public Session createOrReuseSession(String objectId) {
+        // Signed mode: nothing is stored, the cookie itself carries the session
+        if (sessionTokenService.isEnabled()) {
+            AuthPrincipal principal = loadPrincipal(objectId);
+            if (principal == null) {
+                throw new IllegalStateException("No user or host found for id " + objectId);
+            }
+            return sessionTokenService.issue(principal);
+        }
+
         // Debugging: Log the objectId being searched
         System.out.println("Searching for existing session with objectId: " + objectId);
 
@@ -39,9 +59,11 @@ public class SessionService {
                 } else if (existingSession.getExpiresIn().isBefore(LocalDateTime.now().minusDays(7))) {
                     System.out.println("Existing session is older than 7 days. Deleting session.");
                     sessionRepository.deleteSession(existingSession);
+                    sessionCache.invalidate(existingSession.getCookieValue());
                 } else {
                     System.out.println("Existing session has expired. Deleting session.");
                     sessionRepository.deleteSession(existingSession);
+                    sessionCache.invalidate(existingSession.getCookieValue());
                 }
             }
         } else {
@@ -69,30 +91,99 @@ public class SessionService {
         return sessionRepository.find("cookieValue", cookieValue).firstResult();
     }
 
+    // Fallback for the TTL index on expiresIn, which normally removes expired sessions on its own.
+    // Cached entries never outlive their session, so the cache needs no cleanup here.
+    @ClusteredJob("removeExpiredSessions")
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removeExpiredSessions() {
+        long deletedSessions = sessionRepository.deleteExpired(LocalDateTime.now());
+        if (deletedSessions > 0) {
+            System.out.println("Removed " + deletedSessions + " expired session(s).");
+        }
+    }
+
     public boolean logout(String cookieValue) {
+        if (sessionTokenService.isSignedToken(cookieValue)) {
+            return sessionTokenService.revoke(cookieValue);
+        }
+
         // Check if the session exists
         Session existingSession = sessionRepository.find("cookieValue", cookieValue).firstResult();
         if (existingSession != null) {
             // Delete the session
             sessionRepository.delete(existingSession);
+            sessionCache.invalidate(cookieValue);
+            sessionTokenService.revokeStoredSession(cookieValue);
             return true;
         }
         return false; // If no session was found, return false
     }
 
     public String findEmailBySessionCookie(String cookieValue) {
-        // Find the session based on the cookie value
-        Session session = getSessionByCookieValue(cookieValue);
-        if (session == null) {
+        AuthPrincipal principal = getPrincipal(cookieValue);
+        return (principal != null && !principal.isHost()) ? principal.getEmail() : null;
+    }
+
+    public Session getSession(String sessionId) {
+        SessionCache.Entry entry = resolve(sessionId);
+        return entry != null ? entry.getSession() : null;
+    }
+
+    // Owner of the session (user or host), or null if the session is unknown, expired or orphaned
+    public AuthPrincipal getPrincipal(String sessionId) {
+        SessionCache.Entry entry = resolve(sessionId);
+        return entry != null ? entry.getPrincipal() : null;
+    }
+
+    // Cache hit on the hot path; on a miss the session and its owner are loaded once and cached.
+    // A hit revoked on another node (logout, role/status change, deletion) is dropped and read again.
+    private SessionCache.Entry resolve(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+
+        if (sessionTokenService.isSignedToken(sessionId)) {
+            return sessionTokenService.verify(sessionId);
+        }
+
+        SessionCache.Entry cached = sessionCache.get(sessionId);
+        if (cached != null) {
+            if (!sessionTokenService.isRevoked(sessionId, cached.getPrincipal().getId(), cached.getIssuedAt())) {
+                return cached;
+            }
+            sessionCache.invalidate(sessionId);
+        }
+
+        long loadedAt = System.currentTimeMillis();
+        Session session = sessionRepository.find("cookieValue", sessionId).firstResult();
+        if (session == null || (session.getExpiresIn() != null && session.getExpiresIn().isBefore(LocalDateTime.now()))) {
+            return null;
+        }
+
+        AuthPrincipal principal = loadPrincipal(session.getUserId());
+        if (principal == null) {
             return null;
         }
 
-        // Use the userId to fetch the User object and return the email
-        User user = userService.getUserById(session.getUserId());
-        return (user != null) ? user.getEmail() : null;
+        return sessionCache.put(session, principal, loadedAt);
     }
 
-    public Session getSession(String sessionId) {
-        return sessionRepository.find("cookieValue", sessionId).firstResult();
+    // Session ids point either to a user or to a host
+    private AuthPrincipal loadPrincipal(String id) {
+        User user = userService.getUserById(id);
+        if (user != null) {
+            return AuthPrincipal.of(user);
+        }
+        Host host = hostRepository.getById(new ObjectId(id));
+        return host != null ? AuthPrincipal.of(host) : null;
+    }
+
+    // After a change to the caller's own role or status: in signed mode the old token is revoked,
+    // so a fresh one is returned for the response cookie. Stored sessions need nothing and return null.
+    public Session reissueSession(String principalId) {
+        if (!sessionTokenService.isEnabled()) {
+            return null;
+        }
+        return createOrReuseSession(principalId);
     }
 }
@@ -0,0 +1,259 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.model.RevokedSession;
+import Its.incom.pw5.persistence.model.Session;
+import Its.incom.pw5.persistence.model.enums.HostStatus;
+import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.persistence.model.enums.UserStatus;
+import Its.incom.pw5.persistence.repository.RevokedSessionRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stateless session tokens, enabled with pw5.session.mode=signed.
+// A token is base64url(claims) + "." + base64url(HMAC-SHA256(claims)) and is validated without reading the database;
+// only revocations (logout, role/status changes) are stored, and every node keeps them in memory.
+// In stored mode the same revocations invalidate the sessions other nodes hold in their SessionCache.
+@ApplicationScoped
+public class SessionTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final RevokedSessionRepository revokedSessionRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final SecretKeySpec signingKey;
+    private final Duration tokenLifetime;
+    private final Duration sessionCacheTtl;
+
+    private final Map<String, Long> revokedTokenIds = new ConcurrentHashMap<>(); // token id -> expiry, epoch millis
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>(); // principal id -> epoch millis
+
+    public SessionTokenService(RevokedSessionRepository revokedSessionRepository, ObjectMapper objectMapper,
+                               @ConfigProperty(name = "pw5.session.mode", defaultValue = "stored") String mode,
+                               @ConfigProperty(name = "pw5.session.signing-key") Optional<String> signingKey,
+                               @ConfigProperty(name = "pw5.session.lifetime", defaultValue = "P7D") Duration tokenLifetime,
+                               @ConfigProperty(name = "pw5.session-cache.ttl", defaultValue = "PT5M") Duration sessionCacheTtl) {
+        this.revokedSessionRepository = revokedSessionRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = "signed".equalsIgnoreCase(mode);
+        this.tokenLifetime = tokenLifetime;
+        this.sessionCacheTtl = sessionCacheTtl;
+
+        if (enabled && signingKey.map(String::isBlank).orElse(true)) {
+            throw new IllegalStateException("pw5.session.signing-key is required when pw5.session.mode=signed.");
+        }
+        this.signingKey = enabled ? new SecretKeySpec(signingKey.get().getBytes(StandardCharsets.UTF_8), ALGORITHM) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Signed tokens always contain a dot, stored session cookies are plain UUIDs
+    public boolean isSignedToken(String cookieValue) {
+        return enabled && cookieValue != null && cookieValue.indexOf('.') > 0;
+    }
+
+    // Issues a token for the principal; the returned session is not persisted
+    public Session issue(AuthPrincipal principal) {
+        // iat is in milliseconds, so a token re-issued right after a revocation is told apart from the revoked ones
+        Instant issuedAt = Instant.now();
+        long expiresAt = issuedAt.getEpochSecond() + tokenLifetime.toSeconds();
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("sub", principal.getId());
+        claims.put("kind", principal.getKind().name());
+        claims.put("email", principal.getEmail());
+        claims.put("role", principal.getRole() == null ? null : principal.getRole().name());
+        claims.put("status", principal.getStatus() == null ? null : principal.getStatus().name());
+        claims.put("hostStatus", principal.getHostStatus() == null ? null : principal.getHostStatus().name());
+        claims.put("iat", issuedAt.toEpochMilli());
+        claims.put("exp", expiresAt);
+
+        String payload;
+        try {
+            payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode session token.", e);
+        }
+
+        Session session = new Session();
+        session.setUserId(principal.getId());
+        session.setCookieValue(payload + "." + ENCODER.encodeToString(sign(payload)));
+        session.setExpiresIn(toLocalDateTime(expiresAt));
+        return session;
+    }
+
+    // Returns the session and principal carried by a valid token, or null if it is forged, expired or revoked
+    public SessionCache.Entry verify(String token) {
+        int separator = token.indexOf('.');
+        String payload = token.substring(0, separator);
+
+        byte[] signature;
+        Map<String, Object> claims;
+        try {
+            signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return null;
+            }
+            claims = objectMapper.readValue(DECODER.decode(payload), new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception e) {
+            return null;
+        }
+
+        long issuedAt = ((Number) claims.get("iat")).longValue();
+        long expiresAt = ((Number) claims.get("exp")).longValue();
+        String principalId = (String) claims.get("sub");
+        if (expiresAt <= Instant.now().getEpochSecond() || isRevoked((String) claims.get("jti"), principalId, issuedAt)) {
+            return null;
+        }
+
+        AuthPrincipal principal = AuthPrincipal.restore(
+                principalId,
+                AuthPrincipal.Kind.valueOf((String) claims.get("kind")),
+                (String) claims.get("email"),
+                claims.get("role") == null ? null : Role.valueOf((String) claims.get("role")),
+                claims.get("status") == null ? null : UserStatus.valueOf((String) claims.get("status")),
+                claims.get("hostStatus") == null ? null : HostStatus.valueOf((String) claims.get("hostStatus"))
+        );
+
+        Session session = new Session();
+        session.setUserId(principalId);
+        session.setCookieValue(token);
+        session.setExpiresIn(toLocalDateTime(expiresAt));
+        return new SessionCache.Entry(session, principal, session.getExpiresIn(), issuedAt);
+    }
+
+    // True if the token or session id was revoked, or its principal's sessions were revoked after issuedAt (epoch millis)
+    public boolean isRevoked(String tokenId, String principalId, long issuedAt) {
+        if (tokenId != null && revokedTokenIds.containsKey(tokenId)) {
+            return true;
+        }
+        Long notBefore = revokedBefore.get(principalId);
+        return notBefore != null && issuedAt <= notBefore;
+    }
+
+    // Stored mode logout: other nodes drop the session from their cache; once their cached entry
+    // has expired they read the session again and find it deleted
+    public void revokeStoredSession(String cookieValue) {
+        Instant now = Instant.now();
+        RevokedSession revokedSession = new RevokedSession();
+        revokedSession.setTokenId(cookieValue);
+        revokedSession.setExpiresAt(LocalDateTime.ofInstant(now.plus(sessionCacheTtl), ZoneId.systemDefault()));
+        revokedSessionRepository.addRevocation(revokedSession);
+        revokedTokenIds.put(cookieValue, toEpochMillis(revokedSession.getExpiresAt()));
+    }
+
+    // Logout: revokes a single token until it expires
+    public boolean revoke(String token) {
+        SessionCache.Entry entry = verify(token);
+        if (entry == null) {
+            return false;
+        }
+
+        String tokenId = readTokenId(token);
+        RevokedSession revokedSession = new RevokedSession();
+        revokedSession.setTokenId(tokenId);
+        revokedSession.setExpiresAt(entry.getSession().getExpiresIn());
+        revokedSessionRepository.addRevocation(revokedSession);
+        revokedTokenIds.put(tokenId, toEpochMillis(revokedSession.getExpiresAt()));
+        return true;
+    }
+
+    // Revokes every token of the principal issued so far, e.g. after a role or status change
+    public void revokeAllIssuedBefore(String principalId) {
+        Instant issuedBefore = Instant.now();
+        RevokedSession revokedSession = new RevokedSession();
+        revokedSession.setPrincipalId(principalId);
+        revokedSession.setIssuedBefore(LocalDateTime.ofInstant(issuedBefore, ZoneId.systemDefault()));
+        revokedSession.setExpiresAt(LocalDateTime.ofInstant(issuedBefore.plus(revocationLifetime()), ZoneId.systemDefault()));
+        revokedSessionRepository.addRevocation(revokedSession);
+        revokedBefore.merge(principalId, issuedBefore.toEpochMilli(), Math::max);
+    }
+
+    void onStartup(@Observes StartupEvent event) {
+        refreshRevocations();
+    }
+
+    // Picks up revocations made on other nodes, in both session modes
+    @Scheduled(every = "${pw5.session.revocation-refresh:30s}")
+    void refreshRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedSessionRepository.deleteExpired(now);
+
+        // Loaded revocations are merged, never swapped in: one made on this node after the query must not be lost
+        for (RevokedSession revokedSession : revokedSessionRepository.findActive(now)) {
+            if (revokedSession.getTokenId() != null) {
+                revokedTokenIds.merge(revokedSession.getTokenId(), toEpochMillis(revokedSession.getExpiresAt()), Math::max);
+            }
+            if (revokedSession.getPrincipalId() != null && revokedSession.getIssuedBefore() != null) {
+                revokedBefore.merge(revokedSession.getPrincipalId(), toEpochMillis(revokedSession.getIssuedBefore()), Math::max);
+            }
+        }
+
+        // Entries are dropped only once every token they cover has expired
+        long nowMillis = System.currentTimeMillis();
+        revokedTokenIds.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        revokedBefore.values().removeIf(issuedBefore -> issuedBefore + revocationLifetime().toMillis() <= nowMillis);
+    }
+
+    // A revocation matters until every token, or in stored mode every cached session, it covers has expired
+    private Duration revocationLifetime() {
+        return enabled ? tokenLifetime : sessionCacheTtl;
+    }
+
+    private String readTokenId(String token) {
+        try {
+            Map<String, Object> claims = objectMapper.readValue(DECODER.decode(token.substring(0, token.indexOf('.'))),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            return (String) claims.get("jti");
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read session token.", e);
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign session token.", e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Token claims use epoch seconds, stored dates follow the rest of the app and use local time
+    private static LocalDateTime toLocalDateTime(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+}
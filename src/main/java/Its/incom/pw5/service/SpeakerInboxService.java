@@ -23,13 +23,11 @@ public class SpeakerInboxService {
     private final SpeakerInboxRepository speakerInboxRepository;
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
-    private final SessionService sessionService;
 
-    public SpeakerInboxService(SpeakerInboxRepository speakerInboxRepository, EventRepository eventRepository, UserRepository userRepository, SessionService sessionService) {
+    public SpeakerInboxService(SpeakerInboxRepository speakerInboxRepository, EventRepository eventRepository, UserRepository userRepository) {
         this.speakerInboxRepository = speakerInboxRepository;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
-        this.sessionService = sessionService;
     }
 
     public SpeakerInbox confirmRequest(ObjectId inboxId) {
@@ -117,8 +115,8 @@ public class SpeakerInboxService {
             System.out.println("Speaker " + inbox.getSpeakerEmail() + " request was rejected.");
         }
 
-        // Persist the updated event
-        eventRepository.updateEvent(eventToConfirm);
+        // Persist the speaker lists only
+        eventRepository.updateSpeakers(eventToConfirm);
 
         return inbox;
     }
@@ -127,10 +125,7 @@ public class SpeakerInboxService {
         return (start1.isBefore(end2) && end1.isAfter(start2));
     }
 
-    public List<SpeakerInbox> getRequestsForUser(String sessionCookie, SpeakerInboxStatus requestStatus) {
-        // Retrieve the user's email from the session cookie
-        String userEmail = sessionService.findEmailBySessionCookie(sessionCookie);
-
+    public List<SpeakerInbox> getRequestsForUser(String userEmail, SpeakerInboxStatus requestStatus) {
         if (userEmail == null || userEmail.isBlank()) {
             throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error", "Invalid session cookie or user not found."))
@@ -0,0 +1,106 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.repository.IndexManager;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.jboss.logging.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Runs the catch-up jobs (index provisioning, migrations, archival, cleanups) on a background thread after boot,
+// so startup time no longer grows with their backlog. Readiness only waits for the boot itself.
+@Readiness
+@ApplicationScoped
+public class StartupJobs implements HealthCheck {
+
+    private static final Logger LOG = Logger.getLogger(StartupJobs.class);
+
+    private final IndexManager indexManager;
+    private final UserService userService;
+    private final EventService eventService;
+    private final AuthService authService;
+
+    @Inject
+    @RegistryType(type = MetricRegistry.Type.APPLICATION)
+    MetricRegistry metricRegistry;
+
+    // job name -> duration in ms, -1 while pending and -2 if it failed
+    private final Map<String, Long> jobDurations = new ConcurrentHashMap<>();
+    private volatile boolean booted;
+    private ExecutorService executor;
+
+    public StartupJobs(IndexManager indexManager, UserService userService, EventService eventService, AuthService authService) {
+        this.indexManager = indexManager;
+        this.userService = userService;
+        this.eventService = eventService;
+        this.authService = authService;
+    }
+
+    void onStartup(@Observes StartupEvent event) {
+        long bootDuration = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        metricRegistry.gauge("startup_duration_ms", () -> bootDuration, new Tag("phase", "boot"));
+        LOG.infof("Application booted in %d ms, running startup jobs in the background", bootDuration);
+
+        // Jobs run one after the other, in this order
+        Map<String, Runnable> jobs = new LinkedHashMap<>();
+        jobs.put("provisionIndexes", indexManager::provisionIndexes);
+        jobs.put("migrateLegacyBookings", userService::migrateLegacyBookings);
+        jobs.put("archivePastEvents", eventService::archivePastEvents);
+        jobs.put("removeExpiredVerificationTokens", authService::removeExpiredVerificationTokens);
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-jobs");
+            thread.setDaemon(true);
+            return thread;
+        });
+        jobs.forEach((name, job) -> {
+            jobDurations.put(name, -1L);
+            metricRegistry.gauge("startup_duration_ms", () -> jobDurations.get(name), new Tag("phase", name));
+            executor.submit(() -> run(name, job));
+        });
+        executor.shutdown();
+        booted = true;
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) throws InterruptedException {
+        if (executor != null && !executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(String name, Runnable job) {
+        long start = System.currentTimeMillis();
+        try {
+            job.run();
+            jobDurations.put(name, System.currentTimeMillis() - start);
+            LOG.infof("Startup job %s completed in %d ms", name, jobDurations.get(name));
+        } catch (RuntimeException e) {
+            jobDurations.put(name, -2L);
+            LOG.errorf(e, "Startup job %s failed after %d ms", name, System.currentTimeMillis() - start);
+        }
+    }
+
+    // Up as soon as the application booted; the background jobs are reported but never hold readiness back
+    @Override
+    public HealthCheckResponse call() {
+        var response = HealthCheckResponse.named("startup").status(booted);
+        jobDurations.forEach((name, duration) ->
+                response.withData(name, duration == -1 ? "pending" : duration == -2 ? "failed" : duration + " ms"));
+        return response.build();
+    }
+}
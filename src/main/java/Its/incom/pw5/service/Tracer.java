@@ -0,0 +1,199 @@
+package Its.incom.pw5.service;
+
+import io.smallrye.common.vertx.VertxContext;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.logging.MDC;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Lightweight in-process tracing: TracingFilter starts a trace per request, @GlobalLog service calls and Mongo
+// commands add child spans. The trace id is put in the MDC as traceId, so every log line of the request carries it.
+// Traces slower than pw5.tracing.export-threshold are written to the TRACES handler (logs/traces.log),
+// one JSON line per span, when the request ends.
+// The current span lives in the request's Vert.x duplicated context, which the event loop and the worker thread share,
+// so work done after the resource method returns (e.g. a StreamingOutput reading a cursor) still belongs to the trace.
+// Outside of a request (scheduled jobs) a thread local is used instead.
+@ApplicationScoped
+public class Tracer {
+
+    private static final Logger LOG = Logger.getLogger(Tracer.class);
+    public static final String TRACE_ID_MDC_KEY = "traceId";
+
+    public static final class Span {
+        private final Trace trace;
+        private final Span parent;
+        private final int spanId;
+        private final String name;
+        private final long startNanos;
+        private String outcome;
+
+        private Span(Trace trace, Span parent, String name, long startNanos) {
+            this.trace = trace;
+            this.parent = parent;
+            this.spanId = trace.nextSpanId++;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        public String getTraceId() {
+            return trace.traceId;
+        }
+
+        // e.g. the response status, or the exception that ended the span
+        public void setOutcome(String outcome) {
+            this.outcome = outcome;
+        }
+    }
+
+    private static final class Trace {
+        private final String traceId;
+        private final Context context;
+        private final long startEpochMicros = System.currentTimeMillis() * 1000;
+        private final long startNanos = System.nanoTime();
+        private final List<String> finishedSpans = new ArrayList<>();
+        private int nextSpanId = 1;
+        private int droppedSpans;
+
+        private Trace(String traceId, Context context) {
+            this.traceId = traceId;
+            this.context = context;
+        }
+    }
+
+    private final boolean enabled;
+    private final Duration exportThreshold;
+    private final int maxSpansPerTrace;
+    private static final String SPAN_KEY = Tracer.class.getName() + ".span";
+    private final ThreadLocal<Span> threadSpan = new ThreadLocal<>();
+
+    public Tracer(@ConfigProperty(name = "pw5.tracing.enabled", defaultValue = "true") boolean enabled,
+                  @ConfigProperty(name = "pw5.tracing.export-threshold", defaultValue = "PT0.1S") Duration exportThreshold,
+                  @ConfigProperty(name = "pw5.tracing.max-spans-per-trace", defaultValue = "500") int maxSpansPerTrace) {
+        this.enabled = enabled;
+        this.exportThreshold = exportThreshold;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+    }
+
+    // Starts a new trace for the current request (or thread), replacing anything left over by a previous one
+    public Span startTrace(String name) {
+        if (!enabled) {
+            return null;
+        }
+        Trace trace = new Trace(Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE), requestContext());
+        Span root = new Span(trace, null, name, trace.startNanos);
+        setCurrent(trace.context, root);
+        MDC.put(TRACE_ID_MDC_KEY, trace.traceId);
+        return root;
+    }
+
+    // Starts a child of the current span; returns null when no trace is active (startup, scheduled jobs)
+    public Span startSpan(String name) {
+        Span parent = current();
+        if (parent == null) {
+            return null;
+        }
+        synchronized (parent.trace) {
+            Span span = new Span(parent.trace, parent, name, System.nanoTime());
+            setCurrent(parent.trace.context, span);
+            return span;
+        }
+    }
+
+    // Ends the span; ending the root span ends the trace, exports it if slow and clears the request context.
+    // The root span may be ended from another thread than the one that started it (see TracingFilter).
+    public void end(Span span) {
+        if (span == null) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        synchronized (span.trace) {
+            record(span.trace, span.spanId, span.parent, span.name, span.startNanos, endNanos, span.outcome);
+        }
+
+        if (span.parent != null) {
+            setCurrent(span.trace.context, span.parent);
+            return;
+        }
+        setCurrent(span.trace.context, null);
+        MDC.remove(TRACE_ID_MDC_KEY);
+        if (endNanos - span.startNanos >= exportThreshold.toNanos()) {
+            export(span.trace);
+        }
+    }
+
+    // Adds an already finished child span, for operations timed by someone else (e.g. the Mongo driver)
+    public void recordChild(String name, long durationNanos) {
+        Span parent = current();
+        if (parent == null) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        synchronized (parent.trace) {
+            record(parent.trace, parent.trace.nextSpanId++, parent, name, endNanos - durationNanos, endNanos, null);
+        }
+    }
+
+    private static Context requestContext() {
+        Context context = Vertx.currentContext();
+        return context != null && VertxContext.isDuplicatedContext(context) ? context : null;
+    }
+
+    private Span current() {
+        Context context = requestContext();
+        return context != null ? context.getLocal(SPAN_KEY) : threadSpan.get();
+    }
+
+    private void setCurrent(Context context, Span span) {
+        if (context != null) {
+            if (span == null) {
+                context.removeLocal(SPAN_KEY);
+            } else {
+                context.putLocal(SPAN_KEY, span);
+            }
+        } else if (span == null) {
+            threadSpan.remove();
+        } else {
+            threadSpan.set(span);
+        }
+    }
+
+    private void record(Trace trace, int spanId, Span parent, String name, long startNanos, long endNanos, String outcome) {
+        // N+1 loops can produce thousands of spans, only the first ones (and always the root) are kept
+        if (parent != null && trace.finishedSpans.size() >= maxSpansPerTrace) {
+            trace.droppedSpans++;
+            return;
+        }
+        StringBuilder line = new StringBuilder(160)
+                .append("{\"traceId\":\"").append(trace.traceId)
+                .append("\",\"spanId\":").append(spanId)
+                .append(",\"parentId\":").append(parent == null ? 0 : parent.spanId)
+                .append(",\"name\":\"").append(name)
+                .append("\",\"startUs\":").append(trace.startEpochMicros + (startNanos - trace.startNanos) / 1000)
+                .append(",\"durationUs\":").append((endNanos - startNanos) / 1000);
+        if (outcome != null) {
+            line.append(",\"outcome\":\"").append(outcome).append('"');
+        }
+        if (parent == null && trace.droppedSpans > 0) {
+            line.append(",\"droppedSpans\":").append(trace.droppedSpans);
+        }
+        trace.finishedSpans.add(line.append('}').toString());
+    }
+
+    private void export(Trace trace) {
+        if (!LOG.isInfoEnabled()) {
+            return;
+        }
+        synchronized (trace) {
+            for (String span : trace.finishedSpans) {
+                LOG.info(span);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package Its.incom.pw5.service;
 
 import Its.incom.pw5.interceptor.GlobalLog;
+import Its.incom.pw5.persistence.model.Event;
+import Its.incom.pw5.persistence.model.Ticket;
 import Its.incom.pw5.persistence.model.User;
 import Its.incom.pw5.persistence.model.enums.Role;
 import Its.incom.pw5.persistence.model.enums.UserStatus;
@@ -11,6 +13,7 @@ import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import org.bson.types.ObjectId;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -22,10 +25,20 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final HashCalculator hashCalculator;
+    private final SessionCache sessionCache;
+    private final SessionTokenService sessionTokenService;
 
-    public UserService(UserRepository userRepository, HashCalculator hashCalculator) {
+    public UserService(UserRepository userRepository, HashCalculator hashCalculator, SessionCache sessionCache, SessionTokenService sessionTokenService) {
         this.userRepository = userRepository;
         this.hashCalculator = hashCalculator;
+        this.sessionCache = sessionCache;
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    // Role, status or existence changed: cached principals and issued tokens are no longer trustworthy
+    private void invalidateSessions(String userId) {
+        sessionCache.invalidatePrincipal(userId);
+        sessionTokenService.revokeAllIssuedBefore(userId);
     }
 
     private String validateAndSanitizeEmail(String email) {
@@ -50,6 +63,7 @@ public class UserService {
         }
         ObjectId objectId = new ObjectId(id);
         userRepository.deleteUserById(objectId);
+        invalidateSessions(id);
     }
 
     public List<User> getAllUsers() {
@@ -67,18 +81,21 @@ public class UserService {
     public void confirmUser(User user) {
         user.setStatus(UserStatus.VERIFIED);
         userRepository.updateUser(user);
+        invalidateSessions(user.getId().toHexString());
     }
 
     public void updateUserToSpeaker(User user) {
         User updatedUser = userRepository.getUserByEmail(user.getEmail());
         updatedUser.setRole(Role.SPEAKER);
         userRepository.updateUser(updatedUser);
+        invalidateSessions(updatedUser.getId().toHexString());
     }
 
     public void updateSpeakerToUser(User user) {
         User updatedUser = userRepository.getUserByEmail(user.getEmail());
         updatedUser.setRole(Role.USER);
         userRepository.updateUser(updatedUser);
+        invalidateSessions(updatedUser.getId().toHexString());
     }
 
     public List<SpeakerResponse> getAllSpeakers() {
@@ -101,6 +118,31 @@ public class UserService {
         userRepository.updateUser(user);
     }
 
+    public List<String> getEmailsAffectedByEvent(ObjectId eventId, Collection<ObjectId> ticketHolderIds) {
+        return userRepository.findEmailsAffectedByEvent(eventId, ticketHolderIds);
+    }
+
+    public long removeEventFromUsers(ObjectId eventId, Collection<ObjectId> ticketHolderIds) {
+        return userRepository.removeEventReferences(eventId, ticketHolderIds);
+    }
+
+    public boolean addBooking(User user, Event event, Ticket ticket) {
+        return userRepository.addBooking(user.getId(), event, ticket);
+    }
+
+    public boolean removeBooking(User user, ObjectId eventId, ObjectId ticketId) {
+        return userRepository.removeBooking(user.getId(), eventId, ticketId);
+    }
+
+    // Users saved before bookings became references are migrated once; already migrated users are not matched.
+    // Run in the background after boot, legacy documents still decode in the meantime.
+    public void migrateLegacyBookings() {
+        long migratedUsers = userRepository.migrateLegacyBookings();
+        if (migratedUsers > 0) {
+            System.out.println("Migrated bookings of " + migratedUsers + " user(s) to event and ticket references.");
+        }
+    }
+
     public User checkUserCredentials(String email, String psw) {
         if (email == null || email.isBlank() || psw == null || psw.isBlank()) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
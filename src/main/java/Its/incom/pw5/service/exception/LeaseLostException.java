@@ -0,0 +1,7 @@
+package Its.incom.pw5.service.exception;
+
+public class LeaseLostException extends RuntimeException {
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package Its.incom.pw5;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.Map;
+
+// Starts a throwaway single-node replica set and points the application at it instead of the configured cluster.
+// Scheduled jobs are disabled, tests call the services directly.
+public class MongoTestResource implements QuarkusTestResourceLifecycleManager {
+
+    private MongoDBContainer mongo;
+
+    @Override
+    public Map<String, String> start() {
+        mongo = new MongoDBContainer(DockerImageName.parse("mongo:7.0"));
+        mongo.start();
+        return Map.of(
+                "quarkus.mongodb.connection-string", mongo.getReplicaSetUrl(),
+                "quarkus.mongodb.database", "pw5-test",
+                "quarkus.scheduler.enabled", "false"
+        );
+    }
+
+    @Override
+    public void stop() {
+        if (mongo != null) {
+            mongo.stop();
+        }
+    }
+}
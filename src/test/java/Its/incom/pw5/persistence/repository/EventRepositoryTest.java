@@ -0,0 +1,120 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.MongoTestResource;
+import Its.incom.pw5.persistence.model.Event;
+import Its.incom.pw5.persistence.model.enums.EventStatus;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class EventRepositoryTest {
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Test
+    void claimSeatStopsAtCapacity() {
+        Event event = confirmedEvent(2);
+
+        assertNotNull(eventRepository.claimSeat(event.getId(), null));
+        assertNotNull(eventRepository.claimSeat(event.getId(), null));
+        assertNull(eventRepository.claimSeat(event.getId(), null));
+        assertEquals(2, eventRepository.findById(event.getId()).getRegisteredParticipants());
+    }
+
+    @Test
+    void releaseSeatMakesTheSeatBookableAgain() {
+        Event event = confirmedEvent(1);
+
+        assertNotNull(eventRepository.claimSeat(event.getId(), null));
+        assertNull(eventRepository.claimSeat(event.getId(), null));
+
+        eventRepository.releaseSeat(event.getId(), null);
+        assertEquals(0, eventRepository.findById(event.getId()).getRegisteredParticipants());
+        assertNotNull(eventRepository.claimSeat(event.getId(), null));
+    }
+
+    @Test
+    void releaseSeatNeverGoesBelowZero() {
+        Event event = confirmedEvent(1);
+
+        eventRepository.releaseSeat(event.getId(), null);
+        assertEquals(0, eventRepository.findById(event.getId()).getRegisteredParticipants());
+    }
+
+    @Test
+    void claimSeatReservesAndReleaseSeatDropsTheOnDemandTicket() {
+        Event event = confirmedEvent(1);
+        ObjectId ticketId = new ObjectId();
+
+        Event claimed = eventRepository.claimSeat(event.getId(), ticketId);
+        assertNotNull(claimed);
+        assertTrue(claimed.getTicketIds().contains(ticketId));
+
+        eventRepository.releaseSeat(event.getId(), ticketId);
+        assertFalse(eventRepository.findById(event.getId()).getTicketIds().contains(ticketId));
+    }
+
+    @Test
+    void claimSeatIsRejectedForEventsThatAreNotConfirmed() {
+        Event event = confirmedEvent(1);
+        eventRepository.updateStatus(event.getId(), EventStatus.PENDING);
+
+        assertNull(eventRepository.claimSeat(event.getId(), null));
+    }
+
+    @Test
+    void concurrentClaimsNeverOverbook() throws Exception {
+        Event event = confirmedEvent(5);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Event>> claims = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                claims.add(() -> eventRepository.claimSeat(event.getId(), null));
+            }
+
+            int claimed = 0;
+            for (Future<Event> result : executor.invokeAll(claims)) {
+                if (result.get() != null) {
+                    claimed++;
+                }
+            }
+
+            assertEquals(5, claimed);
+            assertEquals(5, eventRepository.findById(event.getId()).getRegisteredParticipants());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Event confirmedEvent(int maxParticipants) {
+        Event event = new Event();
+        event.setTitle("Seat test");
+        event.setHost("Seat Host");
+        event.setStatus(EventStatus.CONFIRMED);
+        event.setStartDate(LocalDateTime.now().plusDays(30));
+        event.setEndDate(LocalDateTime.now().plusDays(30).plusHours(2));
+        event.setMaxParticipants(maxParticipants);
+        event.setTicketIds(new ArrayList<>());
+        eventRepository.persist(event);
+        return event;
+    }
+}
@@ -0,0 +1,70 @@
+package Its.incom.pw5.persistence.repository;
+
+import Its.incom.pw5.MongoTestResource;
+import Its.incom.pw5.persistence.model.Ticket;
+import Its.incom.pw5.persistence.model.enums.TicketStatus;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class TicketRepositoryTest {
+
+    @Inject
+    TicketRepository ticketRepository;
+
+    @Test
+    void unassignTicketClearsTheHolderAndRefreshesTheCode() {
+        ObjectId userId = new ObjectId();
+        Ticket ticket = claimedTicket(userId);
+        String oldCode = ticket.getTicketCode();
+
+        assertTrue(ticketRepository.unassignTicket(ticket, userId));
+
+        Ticket stored = ticketRepository.findById(ticket.getId());
+        assertNull(stored.getUserId());
+        assertNotEquals(oldCode, stored.getTicketCode());
+    }
+
+    @Test
+    void unassignTicketLeavesATicketClaimedByAnotherUser() {
+        ObjectId revokingUserId = new ObjectId();
+        Ticket ticket = claimedTicket(revokingUserId);
+        assertTrue(ticketRepository.unassignTicket(ticket, revokingUserId));
+
+        // Another booker claims the ticket before a second, late revoke arrives
+        ObjectId otherUserId = new ObjectId();
+        assertNotNull(ticketRepository.claimUnassignedTicket(ticket.getEventId(), otherUserId));
+
+        assertFalse(ticketRepository.unassignTicket(ticket, revokingUserId));
+        assertEquals(otherUserId, ticketRepository.findById(ticket.getId()).getUserId());
+    }
+
+    @Test
+    void releaseTicketOnlyReleasesTheExpectedHolder() {
+        Ticket ticket = claimedTicket(new ObjectId());
+        Ticket staleCopy = ticketRepository.findById(ticket.getId());
+        staleCopy.setUserId(new ObjectId());
+
+        assertFalse(ticketRepository.releaseTicket(staleCopy));
+        assertTrue(ticketRepository.releaseTicket(ticket));
+        assertNull(ticketRepository.findById(ticket.getId()).getUserId());
+    }
+
+    // A pre-created ticket claimed through claimUnassignedTicket, as the booking path does
+    private Ticket claimedTicket(ObjectId userId) {
+        Ticket unassigned = new Ticket(null, new ObjectId(), TicketStatus.PENDING);
+        ticketRepository.addTicket(unassigned);
+        return ticketRepository.claimUnassignedTicket(unassigned.getEventId(), userId);
+    }
+}
@@ -0,0 +1,149 @@
+package Its.incom.pw5.rest;
+
+import Its.incom.pw5.MongoTestResource;
+import Its.incom.pw5.persistence.model.Event;
+import Its.incom.pw5.persistence.model.User;
+import Its.incom.pw5.persistence.model.enums.EventStatus;
+import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.persistence.repository.EventRepository;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import io.restassured.specification.RequestSpecification;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class EventResourceTest {
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String id = new ObjectId().toHexString();
+        for (String after : List.of("not-a-cursor", "2024-13-45T10:00_" + id, "2024-01-01T10:00_zzz", "_zzz", "2024-01-01T10:00")) {
+            given().queryParam("after", after)
+                    .when().get("/event")
+                    .then().statusCode(400);
+        }
+    }
+
+    @Test
+    void outOfRangeLimitsAreRejected() {
+        given().queryParam("limit", 0).when().get("/event").then().statusCode(400);
+        given().queryParam("limit", 10_000).when().get("/event").then().statusCode(400);
+    }
+
+    @Test
+    void cursorWithoutStartDateIsAccepted() {
+        given().queryParam("after", "_" + new ObjectId().toHexString())
+                .when().get("/event")
+                .then().statusCode(200);
+    }
+
+    @Test
+    void pagesThroughEventsWithoutStartDate() {
+        String host = uniqueHost();
+        LocalDateTime start = LocalDateTime.now().plusDays(10);
+        // Events without a start date sort first, in id order
+        addEvent(host, "undated 1", null);
+        addEvent(host, "undated 2", null);
+        addEvent(host, "dated 2", start.plusDays(1));
+        addEvent(host, "dated 1", start);
+
+        List<String> titles = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String after = null;
+        do {
+            JsonPath page = page(host, after, 1);
+            titles.addAll(page.getList("events.title", String.class));
+            after = page.getString("nextCursor");
+            cursors.add(after);
+        } while (after != null && titles.size() < 10);
+
+        assertEquals(List.of("undated 1", "undated 2", "dated 1", "dated 2"), titles);
+        // The cursor after an undated event has an empty date part
+        assertNotNull(cursors.get(0));
+        assertEquals('_', cursors.get(0).charAt(0));
+        assertEquals(4, cursors.size());
+        assertNull(cursors.get(3));
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        String host = uniqueHost();
+        LocalDateTime start = LocalDateTime.now().plusDays(10);
+        addEvent(host, "first", start);
+        addEvent(host, "second", start.plusDays(1));
+
+        JsonPath page = page(host, null, 2);
+        assertEquals(List.of("first", "second"), page.getList("events.title", String.class));
+        assertNull(page.getString("nextCursor"));
+
+        JsonPath firstPage = page(host, null, 1);
+        assertEquals(List.of("first"), firstPage.getList("events.title", String.class));
+        assertNotNull(firstPage.getString("nextCursor"));
+    }
+
+    @Test
+    void speakerSearchOnlyMatchesSpeakers() {
+        String host = uniqueHost();
+        LocalDateTime start = LocalDateTime.now().plusDays(10);
+        addEvent(host, "with speaker", start, speaker("Ada", "Lovelace", Role.SPEAKER));
+        addEvent(host, "with namesake", start.plusDays(1), speaker("Ada", "Lovelace", Role.USER));
+        addEvent(host, "with other speaker", start.plusDays(2), speaker("Alan", "Turing", Role.SPEAKER));
+
+        JsonPath page = given().queryParam("host", host).queryParam("speakers", "Ada Lovelace")
+                .when().get("/event")
+                .then().statusCode(200)
+                .extract().jsonPath();
+
+        assertEquals(List.of("with speaker"), page.getList("events.title", String.class));
+    }
+
+    private JsonPath page(String host, String after, int limit) {
+        RequestSpecification request = given().queryParam("host", host).queryParam("limit", limit);
+        if (after != null) {
+            request.queryParam("after", after);
+        }
+        return request.when().get("/event")
+                .then().statusCode(200)
+                .extract().jsonPath();
+    }
+
+    private void addEvent(String host, String title, LocalDateTime startDate, User... speakers) {
+        Event event = new Event();
+        event.setTitle(title);
+        event.setHost(host);
+        event.setStatus(EventStatus.CONFIRMED);
+        event.setStartDate(startDate);
+        event.setEndDate(startDate == null ? null : startDate.plusHours(2));
+        event.setSpeakers(List.of(speakers));
+        eventRepository.persist(event);
+    }
+
+    private static User speaker(String firstName, String lastName, Role role) {
+        User user = new User();
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setRole(role);
+        return user;
+    }
+
+    // Each test filters on its own host, so events of other tests never show up in its pages
+    private static String uniqueHost() {
+        return "Host " + new ObjectId().toHexString();
+    }
+}
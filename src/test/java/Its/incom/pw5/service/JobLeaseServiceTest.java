@@ -0,0 +1,114 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.MongoTestResource;
+import Its.incom.pw5.persistence.repository.JobLeaseRepository;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class JobLeaseServiceTest {
+
+    private static final String OTHER_NODE = "other-node";
+
+    @Inject
+    JobLeaseService jobLeaseService;
+
+    @Inject
+    JobLeaseRepository jobLeaseRepository;
+
+    @Test
+    void runsTheJobUnderTheLeaseAndReleasesIt() throws Exception {
+        String jobName = jobName();
+
+        String result = jobLeaseService.runExclusively(jobName, Duration.ofMinutes(1), () -> {
+            // While the job runs, no other node can take the lease
+            assertNull(jobLeaseRepository.tryAcquire(jobName, OTHER_NODE, Duration.ofMinutes(1)));
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertNotNull(jobLeaseRepository.tryAcquire(jobName, OTHER_NODE, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void skipsTheJobWhileAnotherNodeHoldsTheLease() throws Exception {
+        String jobName = jobName();
+        assertNotNull(jobLeaseRepository.tryAcquire(jobName, OTHER_NODE, Duration.ofMinutes(1)));
+
+        AtomicBoolean ran = new AtomicBoolean();
+        String result = jobLeaseService.runExclusively(jobName, Duration.ofMinutes(1), () -> {
+            ran.set(true);
+            return "done";
+        });
+
+        assertNull(result);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void takesOverAnExpiredLease() throws Exception {
+        String jobName = jobName();
+        assertNotNull(jobLeaseRepository.tryAcquire(jobName, OTHER_NODE, Duration.ofMillis(200)));
+
+        Thread.sleep(400);
+
+        assertEquals("done", jobLeaseService.runExclusively(jobName, Duration.ofMinutes(1), () -> "done"));
+    }
+
+    @Test
+    void renewsTheLeaseWhileTheJobOutlivesIt() throws Exception {
+        String jobName = jobName();
+
+        String result = jobLeaseService.runExclusively(jobName, Duration.ofMillis(600), () -> {
+            Thread.sleep(1500);
+            jobLeaseService.checkLease();
+            return "done";
+        });
+
+        assertEquals("done", result);
+    }
+
+    @Test
+    void stopsTheJobOnceAnotherNodeTookOverTheLease() throws Exception {
+        String jobName = jobName();
+        AtomicBoolean continuedAfterLoss = new AtomicBoolean();
+
+        String result = jobLeaseService.runExclusively(jobName, Duration.ofMinutes(1), () -> {
+            // Another node takes over: the lease expires and is acquired with a newer fencing token
+            jobLeaseRepository.mongoCollection().updateOne(Filters.eq("_id", jobName),
+                    Updates.set("expiresAt", LocalDateTime.now().minusSeconds(1)));
+            assertNotNull(jobLeaseRepository.tryAcquire(jobName, OTHER_NODE, Duration.ofMinutes(1)));
+
+            jobLeaseService.checkLease();
+            continuedAfterLoss.set(true);
+            return "done";
+        });
+
+        assertNull(result);
+        assertFalse(continuedAfterLoss.get());
+    }
+
+    @Test
+    void checkLeaseOutsideOfAJobIsANoOp() {
+        jobLeaseService.checkLease();
+    }
+
+    private static String jobName() {
+        return "test-job-" + new ObjectId().toHexString();
+    }
+}
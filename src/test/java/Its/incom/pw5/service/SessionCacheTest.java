@@ -0,0 +1,95 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.persistence.model.Session;
+import Its.incom.pw5.persistence.model.enums.Role;
+import Its.incom.pw5.persistence.model.enums.UserStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SessionCacheTest {
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedEntry() {
+        SessionCache cache = new SessionCache(Duration.ofMinutes(5), 2);
+        put(cache, "a", "user-1");
+        put(cache, "b", "user-2");
+
+        // Reading "a" makes "b" the least recently used entry
+        assertNotNull(cache.get("a"));
+        put(cache, "c", "user-3");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void invalidateRemovesOnlyThatSession() {
+        SessionCache cache = new SessionCache(Duration.ofMinutes(5), 10);
+        put(cache, "a", "user-1");
+        put(cache, "b", "user-1");
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    void invalidatePrincipalRemovesEverySessionOfThePrincipal() {
+        SessionCache cache = new SessionCache(Duration.ofMinutes(5), 10);
+        put(cache, "a", "user-1");
+        put(cache, "b", "user-1");
+        put(cache, "c", "user-2");
+
+        cache.invalidatePrincipal("user-1");
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void expiredSessionsAreNotCached() {
+        SessionCache cache = new SessionCache(Duration.ofMinutes(5), 10);
+        Session session = session("a", "user-1", LocalDateTime.now().minusSeconds(1));
+
+        assertNotNull(cache.put(session, principal("user-1"), System.currentTimeMillis()));
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        SessionCache cache = new SessionCache(Duration.ofMillis(50), 10);
+        put(cache, "a", "user-1");
+
+        Thread.sleep(100);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    private static void put(SessionCache cache, String cookieValue, String principalId) {
+        cache.put(session(cookieValue, principalId, LocalDateTime.now().plusDays(1)), principal(principalId),
+                System.currentTimeMillis());
+    }
+
+    private static Session session(String cookieValue, String principalId, LocalDateTime expiresIn) {
+        Session session = new Session();
+        session.setCookieValue(cookieValue);
+        session.setUserId(principalId);
+        session.setExpiresIn(expiresIn);
+        return session;
+    }
+
+    private static AuthPrincipal principal(String id) {
+        return AuthPrincipal.restore(id, AuthPrincipal.Kind.USER, id + "@example.com", Role.USER, UserStatus.VERIFIED, null);
+    }
+}
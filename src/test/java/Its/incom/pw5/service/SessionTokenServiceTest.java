@@ -0,0 +1,60 @@
+package Its.incom.pw5.service;
+
+import Its.incom.pw5.MongoTestResource;
+import Its.incom.pw5.persistence.repository.RevokedSessionRepository;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Revocations shared between nodes; the cache check in SessionService relies on them in stored mode
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class SessionTokenServiceTest {
+
+    @Inject
+    SessionTokenService sessionTokenService;
+
+    @Inject
+    RevokedSessionRepository revokedSessionRepository;
+
+    @Test
+    void principalRevocationCoversOnlyEarlierSessions() throws InterruptedException {
+        String principalId = new ObjectId().toHexString();
+        long cachedBefore = System.currentTimeMillis();
+        Thread.sleep(5);
+
+        sessionTokenService.revokeAllIssuedBefore(principalId);
+        Thread.sleep(5);
+
+        assertTrue(sessionTokenService.isRevoked("cookie", principalId, cachedBefore));
+        assertFalse(sessionTokenService.isRevoked("cookie", principalId, System.currentTimeMillis()));
+        assertFalse(sessionTokenService.isRevoked("cookie", new ObjectId().toHexString(), cachedBefore));
+    }
+
+    @Test
+    void loggedOutSessionIsRevoked() {
+        String cookieValue = new ObjectId().toHexString();
+
+        sessionTokenService.revokeStoredSession(cookieValue);
+
+        assertTrue(sessionTokenService.isRevoked(cookieValue, "someone", System.currentTimeMillis()));
+        assertTrue(revokedSessionRepository.count("tokenId", cookieValue) > 0);
+    }
+
+    @Test
+    void refreshKeepsRevocationsMadeOnThisNode() {
+        String cookieValue = new ObjectId().toHexString();
+        sessionTokenService.revokeStoredSession(cookieValue);
+
+        // Even if the stored copy is gone, a refresh merges instead of replacing the local revocations
+        revokedSessionRepository.delete("tokenId", cookieValue);
+        sessionTokenService.refreshRevocations();
+
+        assertTrue(sessionTokenService.isRevoked(cookieValue, "someone", System.currentTimeMillis()));
+    }
+}